@@ -22,39 +22,42 @@ package com.isomorphic.maven.mojo;
 import com.google.common.base.Splitter;
 import com.isomorphic.maven.packaging.Module;
 import com.isomorphic.maven.packaging.*;
+import com.isomorphic.maven.util.ArchiveOptions;
+import com.isomorphic.maven.util.ArchiveUtils;
 import com.isomorphic.maven.util.HttpRequestManager;
+import com.isomorphic.maven.util.Journal;
+import com.isomorphic.maven.util.StagedDirectory;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
-import org.apache.commons.io.IOCase;
 import org.apache.commons.io.filefilter.FileFilterUtils;
-import org.apache.commons.io.filefilter.IOFileFilter;
-import org.apache.commons.io.filefilter.TrueFileFilter;
-import org.apache.commons.io.filefilter.WildcardFileFilter;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.HttpHost;
 import org.apache.http.auth.UsernamePasswordCredentials;
 import org.apache.maven.model.Model;
 import org.apache.maven.model.Parent;
-import org.apache.maven.model.building.DefaultModelBuildingRequest;
 import org.apache.maven.model.building.ModelBuildingException;
-import org.apache.maven.model.building.ModelBuildingRequest;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
-import org.apache.maven.project.ProjectBuildingRequest.RepositoryMerging;
-import org.apache.maven.project.ProjectModelResolver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.util.FileSystemUtils;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
-import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static com.isomorphic.maven.packaging.License.*;
 import static com.isomorphic.maven.packaging.Product.REIFY_ONSITE;
@@ -74,6 +77,9 @@ public abstract class AbstractPackagerMojo extends AbstractBaseMojo {
 
     private static final HttpHost HOST = new HttpHost("www.smartclient.com", -1, "https");
 
+    //the earliest time that is safely represented by every ZIP implementation, regardless of time zone
+    private static final long DEFAULT_OUTPUT_TIMESTAMP = OffsetDateTime.parse("1980-02-01T00:00:00Z").toInstant().toEpochMilli();
+
     private HttpRequestManager httpWorker;
 
     // Note, @parameter definitions and docs for these properties factored down to InstallMojo
@@ -159,6 +165,95 @@ public abstract class AbstractPackagerMojo extends AbstractBaseMojo {
     @Parameter(property = "workdir", defaultValue = "${java.io.tmpdir}/${project.artifactId}")
     protected File workdir;
 
+    /**
+     * The number of threads used to compress the entries of archives (assemblies, javadoc bundles, etc.)
+     * created from the distribution's contents.  Entries are compressed in parallel and written in a
+     * consistent order, regardless of the number of threads.  A value of 1 compresses everything on
+     * the main thread.
+     * <br>
+     * <b>Default value is</b>: <code>The number of available processors</code>.
+     *
+     * @since 1.6.0
+     */
+    @Parameter(property = "compressionThreads")
+    protected Integer compressionThreads;
+
+    /**
+     * The deflate level, from 0 (no compression) to 9 (best compression), used for entries compressed
+     * by the plugin itself, in every archive it writes.  Entries copied from Isomorphic's own archives
+     * keep their original compression.  -1 selects the JDK default (currently 6).
+     *
+     * @since 1.6.0
+     */
+    @Parameter(property = "compressionLevel", defaultValue = "-1")
+    protected Integer compressionLevel;
+
+    /**
+     * A comma-separated list of file extensions whose content is already compressed (images, fonts,
+     * nested archives, etc.), and which should therefore be stored rather than deflated.
+     *
+     * @since 1.6.0
+     */
+    @Parameter(property = "storedExtensions", defaultValue = ArchiveOptions.DEFAULT_STORED_EXTENSIONS)
+    protected String storedExtensions;
+
+    /**
+     * If true (the default), javadoc is extracted to the doc/api directory and then bundled for
+     * attachment to the relevant artifacts.  Set to false to write the javadoc bundles directly
+     * from the downloaded distribution instead, leaving doc/api out of the unpacked distribution.
+     * Always true when {@link #copyToLatest} is.
+     *
+     * @since 1.6.0
+     */
+    @Parameter(property = "extractJavadoc", defaultValue = "true")
+    protected Boolean extractJavadoc;
+
+    /**
+     * If true, javadoc bundles written directly from the downloaded distribution (i.e., when
+     * {@link #extractJavadoc} is false) are written on a background thread while the rest of the
+     * distribution is being repackaged.
+     *
+     * @since 1.6.0
+     */
+    @Parameter(property = "backgroundJavadoc", defaultValue = "true")
+    protected Boolean backgroundJavadoc;
+
+    /**
+     * If true, archives created by the plugin (assemblies, Spring Boot starters, javadoc bundles,
+     * etc.) are written such that the same distribution always yields the same bytes: entries are
+     * sorted by name, and given a fixed modification time and normalized permissions.  Implied by
+     * {@link #outputTimestamp}.
+     *
+     * @since 1.6.0
+     */
+    @Parameter(property = "reproducible", defaultValue = "false")
+    protected Boolean reproducible;
+
+    /**
+     * The modification time given to each entry of a {@link #reproducible} archive, either as an ISO
+     * 8601 date and time (e.g., 2024-01-01T00:00:00Z) or as a number of seconds since the epoch.
+     * Follows the Maven convention for reproducible builds, such that a value of a single character
+     * is ignored.
+     * <br>
+     * <b>Default value is</b>: <code>1980-02-01T00:00:00Z, when reproducible</code>.
+     *
+     * @since 1.6.0
+     */
+    @Parameter(property = "outputTimestamp", defaultValue = "${project.build.outputTimestamp}")
+    protected String outputTimestamp;
+
+    /**
+     * The path to some directory in which distributions should be unpacked before being moved to
+     * their final location under {@link #workdir}.  Pointing this to a fast scratch volume (e.g.,
+     * tmpfs) can speed up extraction, at the cost of a copy to the workdir volume once complete.
+     * <br>
+     * <b>Default value is</b>: <code>A temporary directory alongside the unpacked distribution, on the workdir volume</code>.
+     *
+     * @since 1.6.0
+     */
+    @Parameter(property = "stagingDir")
+    protected File stagingDir;
+
     /**
      * The id of a <a
      * href="http://maven.apache.org/settings.html#Servers">server
@@ -275,7 +370,8 @@ public abstract class AbstractPackagerMojo extends AbstractBaseMojo {
             }
 
             // collect the maven artifacts and send them along to the abstract method
-            Set<Module> artifacts = collect(licenses, basedir);
+            ExtractionManifest manifest = new ExtractionManifest();
+            Set<Module> artifacts = collect(licenses, basedir, manifest);
 
             // Although this is a Maven plugin, the install-reify-onsite and
             // upgrade-reify-onsite targets do not deal with Maven assets - they are deployment
@@ -284,8 +380,11 @@ public abstract class AbstractPackagerMojo extends AbstractBaseMojo {
             // can just skip straight to the  Mojo's execute() method for REIFY_ONSITE targets
 
             if (product != REIFY_ONSITE) {
-                String[] executables = {"bat", "sh", "command"};
-                Collection<File> scripts = FileUtils.listFiles(basedir, executables, true);
+                Collection<String> paths = manifest.getPaths(ExtractionManifest.Kind.SCRIPT);
+                Collection<File> scripts = new ArrayList<File>();
+                for (String path : paths) {
+                    scripts.add(new File(basedir, path));
+                }
 
                 if (copyToLatest) {
                     File bookmarkable = new File(basedir.getParent(), "latest");
@@ -296,7 +395,11 @@ public abstract class AbstractPackagerMojo extends AbstractBaseMojo {
                         FileUtils.copyDirectory(basedir, bookmarkable,
                                 FileFilterUtils.notFileFilter(FileFilterUtils.nameFileFilter("zip")));
 
-                        scripts.addAll(FileUtils.listFiles(bookmarkable, executables, true));
+                        for (String path : paths) {
+                            if (!Arrays.asList(path.split("/")).contains("zip")) {
+                                scripts.add(new File(bookmarkable, path));
+                            }
+                        }
 
                     } catch (IOException e) {
                         throw new MojoFailureException("Unable to copy distribution contents", e);
@@ -337,12 +440,15 @@ public abstract class AbstractPackagerMojo extends AbstractBaseMojo {
      *            optional modules.
      * @param basedir
      *            The directory into which results should be written
+     * @param manifest
+     *            The manifest to which each file found under basedir should be
+     *            added, whether unpacked here or by an earlier run
      * @return A collection of Maven artifacts resulting from the download and
      *         preparation of a supported Isomorphic SDK.
      * @throws MojoExecutionException
      *             When any fatal error occurs.
      */
-    private Set<Module> collect(List<License> downloads, File basedir)
+    private Set<Module> collect(List<License> downloads, File basedir, ExtractionManifest manifest)
         throws MojoExecutionException {
 
         File downloadTo = new File(basedir, "zip");
@@ -367,44 +473,65 @@ public abstract class AbstractPackagerMojo extends AbstractBaseMojo {
             }
 
             if (!skipExtract) {
-                LOGGER.info("Unpacking downloaded file/s to '{}'", basedir);
-                for (Distribution distribution : distributions) {
-                    distribution.unpack(basedir);
-                    if (skins != null || product == REIFY_ONSITE) {
-                        skin(basedir, distribution.getSkinResources());
+                //contents are unpacked to a staging directory and only then swapped in for the
+                //existing ones, so that an interrupted run never leaves a partial tree behind.  a
+                //staging directory left by an interrupted run is resumed, per its journal
+                StagedDirectory.cleanUp(basedir, stagingDir);
+                try (StagedDirectory stage = new StagedDirectory(basedir, stagingDir)) {
+                    File unpackTo = stage.getDirectory();
+
+                    LOGGER.info("Unpacking downloaded file/s to '{}'", basedir);
+                    LOGGER.debug("Staging unpacked file/s at '{}'", unpackTo);
+                    ArchiveOptions archiveOptions = getArchiveOptions();
+                    try (Journal journal = stage.openJournal(getFingerprint(distributions, archiveOptions))) {
+                        if (journal.isResumed()) {
+                            LOGGER.info("Resuming unpack interrupted by an earlier run");
+                        }
+                        UnpackContext context = new UnpackContext(archiveOptions, extractJavadoc || copyToLatest,
+                            backgroundJavadoc, skins != null && product != REIFY_ONSITE ? getRetainedSkins() : null,
+                            journal, manifest);
+                        for (Distribution distribution : distributions) {
+                            distribution.unpack(unpackTo, context);
+                            String step = "skin " + describe(distribution);
+                            Map<String, String> skinResources = distribution.getSkinResourcesToPrune(context);
+                            if ((skins != null || product == REIFY_ONSITE) && !skinResources.isEmpty() && !journal.isComplete(step)) {
+                                skin(unpackTo, skinResources);
+                                journal.complete(step);
+                            }
+                        }
                     }
+                    stage.publish(downloadTo.getName());
                 }
+                manifest.addTree(basedir, downloadTo.getName());
+            } else if (product != REIFY_ONSITE) {
+                manifest.addTree(basedir, "");
             }
 
             if (product == REIFY_ONSITE) {
                 return null;
             }
 
-            // TODO it'd be better if this didn't have to know where the files were located after unpacking
-
-            // it doesn't strictly read this way, but we're looking for
-            // lib/*.jar, pom/*.xml, assembly/*.zip
-            Collection<File> files = FileUtils.listFiles(
-                basedir,
-                FileFilterUtils.or(FileFilterUtils.suffixFileFilter("jar"),
-                    FileFilterUtils.suffixFileFilter("xml"),
-                    FileFilterUtils.suffixFileFilter("zip"),
-                    // The Spring Boot starter parent is a one-off - a *.pom file with no
-                    // related JAR that does not live in a pom/ subdir
-                    new WildcardFileFilter("smart*-spring-boot-starter-parent*.pom")),
-                FileFilterUtils.or(FileFilterUtils.nameFileFilter("lib"),
-                    FileFilterUtils.nameFileFilter("pom"),
-                    FileFilterUtils.nameFileFilter("assembly"),
-                    FileFilterUtils.nameFileFilter("spring-boot"))
-            );
+            // lib/*.jar, pom/*.xml, assembly/*.zip, etc., as classified by the manifest
+            Collection<File> files = manifest.getFiles(ExtractionManifest.Kind.ARTIFACT, basedir);
 
             if (files.isEmpty()) {
                 throw new MojoExecutionException(String.format("There don't appear to be any files to work with at '%s'.  Check earlier log entries for clues.", basedir.getAbsolutePath()));
             }
 
-            Set<Module> result = new TreeSet<Module>();
-            for (File file : files) {
-                try {
+            //coordinates are cached across runs (and products) in the workdir, keyed on POM content
+            CoordinateCache coordinates = new CoordinateCache(new File(workdir, "coordinates.properties"));
+
+            //each POM is read once, on a pool thread, and its model matched to its artifact/s once all have been
+            //submitted.  modules are kept sorted, so the result is the same whatever order the models complete in
+            ExecutorService pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+                Thread thread = new Thread(runnable, "isc-model");
+                thread.setDaemon(true);
+                return thread;
+            });
+            try {
+                Map<File, File> artifacts = new LinkedHashMap<File, File>();
+                Map<File, Future<Model>> models = new HashMap<File, Future<Model>>();
+                for (File file : files) {
 
                     String base = FilenameUtils.getBaseName(file.getName().replaceAll("_", "-"));
 
@@ -414,22 +541,32 @@ public abstract class AbstractPackagerMojo extends AbstractBaseMojo {
                         continue;
                     }
 
-                    // poms don't need anything else
-                    if ("xml".equals(FilenameUtils.getExtension(file.getName()))) {
-                        result.add(new Module(getModelFromFile(file)));
-                        continue;
+                    // poms don't need anything else, otherwise for each jar/zip, find the matching pom
+                    File pom = file;
+                    if (!"xml".equals(FilenameUtils.getExtension(file.getName()))) {
+                        Collection<File> poms = manifest.getPoms(base + ".pom", basedir);
+                        if (poms.size() != 1) {
+                            LOGGER.warn("Expected to find exactly 1 POM matching artifact with name '{}', but found {}.  Skipping installation.",base, poms.size());
+                            continue;
+                        }
+                        pom = poms.iterator().next();
+                    }
+                    artifacts.put(file, pom);
+                    if (!models.containsKey(pom)) {
+                        File source = pom;
+                        models.put(pom, pool.submit(() -> getModelFromFile(source, coordinates)));
                     }
+                }
+
+                Set<Module> result = new TreeSet<Module>();
+                for (Map.Entry<File, File> artifact : artifacts.entrySet()) {
+                    File file = artifact.getKey();
+                    Model model = getModel(models.get(artifact.getValue()));
 
-                    // for each jar/zip, find the matching pom
-                    IOFileFilter filter = new WildcardFileFilter(base + ".pom", IOCase.INSENSITIVE);
-                    Collection<File> poms = FileUtils.listFiles(basedir, filter,
-                        TrueFileFilter.INSTANCE);
-                    if (poms.size() != 1) {
-                        LOGGER.warn("Expected to find exactly 1 POM matching artifact with name '{}', but found {}.  Skipping installation.",base, poms.size());
+                    if (file.equals(artifact.getValue())) {
+                        result.add(new Module(model));
                         continue;
                     }
-
-                    Model model = getModelFromFile(poms.iterator().next());
                     Module module = new Module(model, file);
 
                     /*
@@ -440,12 +577,11 @@ public abstract class AbstractPackagerMojo extends AbstractBaseMojo {
                      * a) there is no per-jar javadoc b) naming conventions are
                      * adhered to (or can be corrected by plugin at extraction)
                      */
+                    String base = FilenameUtils.getBaseName(file.getName().replaceAll("_", "-"));
                     int index = base.indexOf("-");
                     String prefix = base.substring(0, index);
 
-                    Collection<File> doc = FileUtils.listFiles(new File(basedir, "doc"),
-                        FileFilterUtils.prefixFileFilter(prefix),
-                        FileFilterUtils.nameFileFilter("lib"));
+                    Collection<File> doc = manifest.getJavadoc(prefix, basedir);
 
                     if (doc.size() != 1) {
                         LOGGER.debug("Found {} javadoc attachments with prefix '{}'.  Skipping attachment.", doc.size(), prefix);
@@ -454,25 +590,58 @@ public abstract class AbstractPackagerMojo extends AbstractBaseMojo {
                     }
 
                     result.add(module);
-                } catch (ModelBuildingException e) {
-                    throw new MojoExecutionException("Error building model from POM", e);
                 }
+                coordinates.save();
+                return result;
+            } finally {
+                pool.shutdownNow();
             }
-            return result;
         } catch (IOException e) {
             throw new MojoExecutionException("Failure during assembly collection", e);
         }
     }
 
+    /**
+     * Waits for a model being built by {@link #getModelFromFile(File, CoordinateCache)} on a pool thread, rethrowing any exception
+     * encountered there.
+     *
+     * @param model the model being built
+     * @return the model
+     * @throws MojoExecutionException if the model could not be built, or if interrupted while waiting
+     * @throws IOException if the POM could not be read
+     */
+    private static Model getModel(Future<Model> model) throws MojoExecutionException, IOException {
+        try {
+            return model.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while building models from POMs", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new MojoExecutionException("Error building model from POM", e.getCause());
+        }
+    }
+
     /**f
      * Read the given POM so it can be used as the source of coordinates, etc.
      * during artifact construction. Note that if this object's
-     * {@link #snapshots} property is true, and we're working with a development
+     * {@link #snapshots} property is false, and we're working with a development
      * build ({@link #buildNumber} ends with 'd'), the POM is modified to remove
-     * the SNAPSHOT qualifier.
+     * the SNAPSHOT qualifier.  It is rewritten only if it actually contains one,
+     * and replaced rather than written in place, as it may be linked to other
+     * copies of the same file.
+     * <p>
+     * Coordinates already recorded in the given cache for the same POM content
+     * are used as they are, without building the model again.  Otherwise they
+     * are read by a {@link CoordinateReader}, and only POMs it cannot handle are
+     * given to the Maven model builder.
      *
      * @param pom
      *            the POM file containing the artifact metadata
+     * @param coordinates
+     *            the cache in which coordinates are recorded
      * @return A Maven model to be used at
      *         {@link com.isomorphic.maven.packaging.Module#Module(Model)}
      *         Module construction
@@ -481,39 +650,138 @@ public abstract class AbstractPackagerMojo extends AbstractBaseMojo {
      * @throws IOException
      *             if the Model cannot be built from the given POM
      */
-    private Model getModelFromFile(File pom) throws ModelBuildingException, IOException {
-
-        if (buildNumber.endsWith("d") && !snapshots) {
-            LOGGER.info(
-                "Rewriting file to remove SNAPSHOT qualifier from development POM '{}'",
-                pom.getName());
-            String content = FileUtils.readFileToString(pom);
-            content = content.replaceAll("-SNAPSHOT", "");
-            FileUtils.write(pom, content);
+    private Model getModelFromFile(File pom, CoordinateCache coordinates) throws ModelBuildingException, IOException {
+
+        byte[] content = Files.readAllBytes(pom.toPath());
+        boolean release = buildNumber.endsWith("d") && !snapshots;
+        if (release) {
+            byte[] stripped = removeSnapshotQualifiers(content);
+            if (stripped != content) {
+                LOGGER.info(
+                    "Rewriting file to remove SNAPSHOT qualifier from development POM '{}'",
+                    pom.getName());
+                File temp = File.createTempFile(pom.getName(), ".tmp", pom.getParentFile());
+                try {
+                    Files.write(temp.toPath(), stripped);
+                    Files.move(temp.toPath(), pom.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    Files.deleteIfExists(temp.toPath());
+                }
+                content = stripped;
+            }
         }
 
-        ProjectModelResolver resolver = new ProjectModelResolver(repositorySystemSession, null, repositorySystem, remoteRepositoryManager, project.getRemoteProjectRepositories(), RepositoryMerging.POM_DOMINANT, null);
-        ModelBuildingRequest request = new DefaultModelBuildingRequest();
-        request.setModelResolver(resolver);
-        request.setPomFile(pom);
+        String key = CoordinateCache.getKey(content, release ? "release" : "snapshot");
+        Model cached = coordinates.get(key, pom);
+        if (cached != null) {
+            LOGGER.debug("Using cached coordinates for POM '{}'", pom.getName());
+            return cached;
+        }
 
-        Model model = modelBuilder.buildRawModel(pom, 0, false).get();
+        //most POMs need nothing more than a quick read of their coordinates
+        Model model = CoordinateReader.read(pom);
+        if (model == null) {
+            LOGGER.debug("Building model from POM '{}'", pom.getName());
+            model = modelBuilder.buildRawModel(pom, 0, false).get();
+        }
         Parent parent = model.getParent();
         if (parent != null) {
                 model.setGroupId(parent.getGroupId());
                 model.setVersion(parent.getVersion());
         }
 
+        coordinates.put(key, model);
         return model;
     }
 
-    protected void skin(File basedir, Map<String, String> skinResources) throws MojoExecutionException, IOException {
+    /**
+     * Removes every occurrence of <code>-SNAPSHOT</code> from the given content.  The qualifier is plain ASCII, so
+     * it can be removed from the encoded bytes of any ASCII-compatible encoding without decoding them first.
+     *
+     * @param content the content of a POM
+     * @return the content without the qualifier, or the same array if there was nothing to remove
+     */
+    private static byte[] removeSnapshotQualifiers(byte[] content) {
+        byte[] qualifier = "-SNAPSHOT".getBytes(StandardCharsets.US_ASCII);
+        ByteArrayOutputStream result = null;
+        int start = 0;
+        outer:
+        for (int i = 0; i <= content.length - qualifier.length; i++) {
+            for (int j = 0; j < qualifier.length; j++) {
+                if (content[i + j] != qualifier[j]) {
+                    continue outer;
+                }
+            }
+            if (result == null) {
+                result = new ByteArrayOutputStream(content.length);
+            }
+            result.write(content, start, i - start);
+            start = i + qualifier.length;
+            i = start - 1;
+        }
+        if (result == null) {
+            return content;
+        }
+        result.write(content, start, content.length - start);
+        return result.toByteArray();
+    }
 
-        LOGGER.info("Pruning unwanted skins...");
+    /**
+     * Returns the modification time to be given to every entry of the archives written by the plugin.
+     *
+     * @return the time in milliseconds since the epoch, or -1 if archives are not to be reproducible
+     * @throws MojoExecutionException if {@link #outputTimestamp} cannot be parsed
+     */
+    private long getOutputTimestamp() throws MojoExecutionException {
+        if (outputTimestamp == null || outputTimestamp.trim().length() < 2) {
+            return Boolean.TRUE.equals(reproducible) ? DEFAULT_OUTPUT_TIMESTAMP : -1;
+        }
+        String value = outputTimestamp.trim();
+        try {
+            if (value.chars().allMatch(Character::isDigit)) {
+                return Long.parseLong(value) * 1000;
+            }
+            return OffsetDateTime.parse(value).toInstant().toEpochMilli();
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new MojoExecutionException("Invalid outputTimestamp '" + value
+                + "'.  Expected an ISO 8601 date and time, or a number of seconds since the epoch.");
+        }
+    }
+
+    /**
+     * Returns a String identifying the files to be unpacked and each of the settings that affects the result, such
+     * that an unpack interrupted by an earlier run is only resumed when nothing has changed since.
+     *
+     * @param distributions the distributions to be unpacked
+     * @param archiveOptions the settings used to write archives
+     * @return the fingerprint
+     */
+    private String getFingerprint(List<Distribution> distributions, ArchiveOptions archiveOptions) {
+        List<String> result = new ArrayList<String>();
+        result.add(String.valueOf(getClass().getPackage().getImplementationVersion()));
+        result.add(product + " " + skins + " " + (extractJavadoc || copyToLatest));
+        result.add(compressionLevel + " " + storedExtensions + " " + archiveOptions.getTimestamp());
+        for (Distribution distribution : distributions) {
+            result.add(describe(distribution));
+        }
+        return StringUtils.join(result, "; ");
+    }
 
-        Map<String, String> props = new HashMap<>();
-        props.put("create", "false");
+    private static String describe(Distribution distribution) {
+        Set<String> files = new TreeSet<String>();
+        for (File file : distribution.getFiles()) {
+            files.add(file.getName() + ":" + file.length() + ":" + file.lastModified());
+        }
+        return StringUtils.join(files, ",");
+    }
 
+    /**
+     * Returns the lower case names of the skins to be retained: those requested by {@link #skins}, plus a few
+     * needed by the tools and the framework itself.
+     *
+     * @return the names of the skins to be retained
+     */
+    private List<String> getRetainedSkins() {
         List<String> requested = new ArrayList<>(Splitter.on(",").trimResults().splitToList(skins.toLowerCase()));
 
         // preserve for simplicity
@@ -521,29 +789,84 @@ public abstract class AbstractPackagerMojo extends AbstractBaseMojo {
         requested.add("fonts");
         requested.add("toolskin");
         requested.add("toolskinnative");
+        return requested;
+    }
+
+    protected void skin(File basedir, Map<String, String> skinResources) throws MojoExecutionException, IOException {
+
+        LOGGER.info("Pruning unwanted skins...");
+
+        List<String> requested = getRetainedSkins();
+        ArchiveOptions options = getArchiveOptions();
+
+        //each archive is rewritten in a single pass, copying the compressed entries of retained skins (and
+        //everything else) as-is, and the archives are rewritten in parallel
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(skinResources.size(), options.getThreads())), runnable -> {
+            Thread thread = new Thread(runnable, "isc-skins");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Map<File, Set<String>> deleted = new LinkedHashMap<File, Set<String>>();
+            List<Future<Boolean>> rewrites = new ArrayList<Future<Boolean>>();
+            for (Map.Entry<String, String> resource : skinResources.entrySet()) {
+                File archive = new File(basedir, resource.getKey());
+                String skinDir = resource.getValue();
+                Set<String> skins = ConcurrentHashMap.newKeySet();
+                deleted.put(archive, skins);
 
-        Set<String> keys = skinResources.keySet();
-        for(String key : keys) {
-            String archive = basedir.getCanonicalPath() + "/" + key;
-            String skinDir = skinResources.get(key);
-            if (LOGGER.isDebugEnabled()) {
                 LOGGER.debug("Opening file at '{}' for modification", archive);
+                rewrites.add(pool.submit(() -> ArchiveUtils.filter(archive, name -> {
+                    String skin = Distribution.getSkinName(name, skinDir);
+                    if (skin == null || requested.contains(skin.toLowerCase())) {
+                        return true;
+                    }
+                    skins.add(skin);
+                    return false;
+                }, options)));
             }
-            URI uri = URI.create("jar:file:" + archive);
-            try (FileSystem fs = FileSystems.newFileSystem(uri, props)) {
-                try (DirectoryStream<Path> ds = Files.newDirectoryStream(fs.getPath(skinDir), Files::isDirectory)) {
-                    for (Path path : ds) {
-                        String skin = path.getFileName().toString().toLowerCase().replace("/", "");
-
-                        if (requested.contains(skin)) {
-                            LOGGER.debug("Preserving '{}' skin", skin);
-                            continue;
-                        }
-                        LOGGER.info("Deleting '{}' skin resources at '{}'", skin, path);
-                        FileSystemUtils.deleteRecursively(path);
+
+            Iterator<Future<Boolean>> rewrite = rewrites.iterator();
+            for (Map.Entry<File, Set<String>> archive : deleted.entrySet()) {
+                try {
+                    rewrite.next().get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new MojoExecutionException("Interrupted while pruning skins", e);
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof IOException) {
+                        throw (IOException) e.getCause();
                     }
-                } catch (NotDirectoryException ignore) {}
+                    throw new MojoExecutionException("Unable to prune skins from " + archive.getKey(), e.getCause());
+                }
+                for (String skin : new TreeSet<String>(archive.getValue())) {
+                    LOGGER.info("Deleted '{}' skin resources from '{}'", skin, archive.getKey());
+                }
             }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns the settings to be used to write archives, per {@link #compressionLevel}, {@link #compressionThreads},
+     * etc.
+     *
+     * @return the settings to be used to write archives
+     * @throws MojoExecutionException if any setting is invalid
+     */
+    private ArchiveOptions getArchiveOptions() throws MojoExecutionException {
+        ArchiveOptions result = new ArchiveOptions();
+        if (compressionThreads != null) {
+            result.setThreads(compressionThreads);
+        }
+        try {
+            result.setLevel(compressionLevel);
+        } catch (IllegalArgumentException e) {
+            throw new MojoExecutionException(e.getMessage());
         }
+        result.setStoredExtensions(storedExtensions);
+        result.setTimestamp(getOutputTimestamp());
+        return result;
     }
 }
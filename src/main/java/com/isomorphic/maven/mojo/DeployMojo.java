@@ -1,6 +1,10 @@
 package com.isomorphic.maven.mojo;
 
 import com.isomorphic.maven.packaging.Module;
+import com.isomorphic.maven.util.RemoteChecksums;
+import org.apache.commons.io.IOUtils;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.Mojo;
@@ -13,7 +17,24 @@ import org.eclipse.aether.repository.RemoteRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Deploys a collection of {@link Module}s to the Maven repository location indicated by the given {@link #repositoryUrl} property. 
@@ -55,6 +76,33 @@ public final class DeployMojo extends AbstractCoreMavenGoalsMojo {
     @Parameter(property="repositoryType", defaultValue="default")
     private String repositoryType;
 
+    /**
+     * The number of {@link Module}s that may be uploaded at once.  Modules are deployed in dependency order
+     * regardless: each module's parent, and any other module it depends on, is deployed before the module itself.
+     * <br>
+     * <b>Default value is</b>: <code>1</code>.
+     *
+     * @since 1.6.0
+     */
+    @Parameter(property="deployThreads", defaultValue="1")
+    private int deployThreads = 1;
+
+    /**
+     * If true, the checksum of each artifact (and each of its attachments) is first compared with the one already
+     * deployed alongside it, and only those artifacts that differ are uploaded.  Artifacts whose remote checksum
+     * cannot be read, and SNAPSHOT versions, are always uploaded.
+     * <br>
+     * <b>Default value is</b>: <code>false</code>.
+     *
+     * @since 1.6.0
+     */
+    @Parameter(property="incremental", defaultValue="false")
+    private boolean incremental;
+
+    private RemoteChecksums checksums;
+    private final AtomicInteger skippedFiles = new AtomicInteger();
+    private final AtomicLong skippedBytes = new AtomicLong();
+
     /**
      * Deploy each of the provided {@link Module}s, along with their SubArtifacts (POMs, JavaDoc bundle, etc.), to the repository location
      * indicated by {@link #repositoryUrl}.
@@ -70,23 +118,212 @@ public final class DeployMojo extends AbstractCoreMavenGoalsMojo {
 
         RemoteRepository repository = builder.build();
 
-        for (Module artifact : artifacts) {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, deployThreads), runnable -> {
+            Thread thread = new Thread(runnable, "isc-deploy");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (incremental) {
+            checksums = new RemoteChecksums(repositoryUrl, getCredentials(repositoryId), settings.getActiveProxy(), deployThreads);
+        }
+        List<Module> deployed = new ArrayList<Module>();
+        Map<Module, Throwable> failed = new LinkedHashMap<Module, Throwable>();
+        try {
+            //each level is deployed in full before the next is started, and no further level is started once any
+            //module has failed.  every upload already under way is allowed to finish, so that the outcome of each
+            //is known
+            for (List<Module> level : getDeploymentOrder(artifacts)) {
+                Map<Module, Future<Void>> uploads = new LinkedHashMap<Module, Future<Void>>();
+                for (Module artifact : level) {
+                    uploads.put(artifact, pool.submit(() -> {
+                        deploy(artifact, repository);
+                        return null;
+                    }));
+                }
+                for (Map.Entry<Module, Future<Void>> upload : uploads.entrySet()) {
+                    try {
+                        upload.getValue().get();
+                        deployed.add(upload.getKey());
+                    } catch (ExecutionException e) {
+                        failed.put(upload.getKey(), e.getCause());
+                    }
+                }
+                if (!failed.isEmpty()) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted during deployment", e);
+        } finally {
+            pool.shutdownNow();
+            if (checksums != null) {
+                IOUtils.closeQuietly(checksums);
+            }
+        }
 
-            DeployRequest deployRequest = new DeployRequest();
-            deployRequest.addArtifact(artifact);
-            deployRequest.setRepository(repository);
+        if (!failed.isEmpty()) {
+            List<Module> skipped = new ArrayList<Module>(artifacts);
+            skipped.removeAll(deployed);
+            skipped.removeAll(failed.keySet());
+            for (Map.Entry<Module, Throwable> failure : failed.entrySet()) {
+                LOGGER.error("Unable to deploy {}", failure.getKey(), failure.getValue());
+            }
+            LOGGER.error("Deployment failed.  {} module(s) deployed: {}", deployed.size(), deployed);
+            LOGGER.error("{} module(s) failed: {}", failed.size(), failed.keySet());
+            LOGGER.error("{} module(s) not attempted: {}", skipped.size(), skipped);
+
+            Throwable cause = failed.values().iterator().next();
+            if (cause instanceof DeploymentException) {
+                throw new MojoFailureException("Deployment failed: ", cause);
+            }
+            throw new MojoExecutionException("Deployment failed: ", cause);
+        }
+        if (incremental) {
+            LOGGER.info("Skipped {} unchanged file(s), saving {} bytes", skippedFiles.get(), skippedBytes.get());
+        }
+    }
+
+    private void deploy(Module artifact, RemoteRepository repository) throws DeploymentException, IOException {
 
-            for (Artifact subArtifact : artifact.getAttachments()) {
-                deployRequest.addArtifact(subArtifact);
+        DeployRequest deployRequest = new DeployRequest();
+        deployRequest.setRepository(repository);
+
+        List<Artifact> files = new ArrayList<Artifact>();
+        files.add(artifact);
+        files.addAll(Arrays.asList(artifact.getAttachments()));
+        for (Artifact file : files) {
+            if (checksums != null && checksums.matches(file)) {
+                skippedFiles.incrementAndGet();
+                skippedBytes.addAndGet(file.getFile().length());
+                LOGGER.debug("Skipping unchanged file '{}'", file.getFile().getName());
+            } else {
+                deployRequest.addArtifact(file);
             }
+        }
 
+        if (deployRequest.getArtifacts().isEmpty()) {
+            LOGGER.info("Skipping unchanged module {}", artifact);
+            return;
+        }
+        repositorySystem.deploy(repositorySystemSession, deployRequest);
+    }
+
+    /**
+     * Groups the given modules into levels, such that every module a module depends on (its parent, any dependency,
+     * any imported or managed dependency) is in an earlier level.  Dependencies are read from each module's POM and
+     * matched to modules by groupId and artifactId, ignoring versions, and groupIds given by property references
+     * match any module.  Modules in any dependency cycle are placed together in a final level.
+     * <p>
+     * POMs are read in parallel, each on a pool thread.
+     *
+     * @param artifacts the modules to be deployed
+     * @return the modules, by level, in the order they should be deployed
+     * @throws InterruptedException if interrupted while waiting for POMs to be read
+     */
+    private List<List<Module>> getDeploymentOrder(Set<Module> artifacts) throws InterruptedException {
+
+        Map<String, List<Module>> byArtifactId = new HashMap<String, List<Module>>();
+        for (Module artifact : artifacts) {
+            byArtifactId.computeIfAbsent(artifact.getArtifactId(), key -> new ArrayList<Module>()).add(artifact);
+        }
+
+        Map<Module, Future<Model>> models = new LinkedHashMap<Module, Future<Model>>();
+        ExecutorService pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "isc-model");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            for (Module artifact : artifacts) {
+                models.put(artifact, pool.submit(() -> getModel(artifact)));
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        Map<Module, Set<Module>> dependencies = new LinkedHashMap<Module, Set<Module>>();
+        for (Module artifact : artifacts) {
+            Set<Module> result = new LinkedHashSet<Module>();
+            Model model;
             try {
-                repositorySystem.deploy(repositorySystemSession, deployRequest);
-            } catch (DeploymentException e) {
-                throw new MojoFailureException("Deployment failed: ", e);
+                model = models.get(artifact).get();
+            } catch (ExecutionException e) {
+                LOGGER.debug("Unable to read dependencies of '{}', deploying it without regard to them", artifact, e.getCause());
+                model = null;
+            }
+            if (model != null) {
+                if (model.getParent() != null) {
+                    result.addAll(find(byArtifactId, model.getParent().getGroupId(), model.getParent().getArtifactId()));
+                }
+                List<Dependency> declared = new ArrayList<Dependency>(model.getDependencies());
+                if (model.getDependencyManagement() != null) {
+                    declared.addAll(model.getDependencyManagement().getDependencies());
+                }
+                for (Dependency dependency : declared) {
+                    result.addAll(find(byArtifactId, dependency.getGroupId(), dependency.getArtifactId()));
+                }
             }
+            result.remove(artifact);
+            dependencies.put(artifact, result);
+        }
 
+        List<List<Module>> result = new ArrayList<List<Module>>();
+        Set<Module> ordered = new HashSet<Module>();
+        while (ordered.size() < dependencies.size()) {
+            List<Module> level = new ArrayList<Module>();
+            for (Map.Entry<Module, Set<Module>> artifact : dependencies.entrySet()) {
+                if (!ordered.contains(artifact.getKey()) && ordered.containsAll(artifact.getValue())) {
+                    level.add(artifact.getKey());
+                }
+            }
+            if (level.isEmpty()) {
+                for (Module artifact : dependencies.keySet()) {
+                    if (!ordered.contains(artifact)) {
+                        level.add(artifact);
+                    }
+                }
+                LOGGER.warn("Unable to order the deployment of modules with circular dependencies: {}", level);
+            }
+            ordered.addAll(level);
+            result.add(level);
+        }
+        LOGGER.debug("Deploying {} module(s) in {} level(s)", dependencies.size(), result.size());
+        return result;
+    }
+
+    private static List<Module> find(Map<String, List<Module>> byArtifactId, String groupId, String artifactId) {
+        List<Module> result = new ArrayList<Module>();
+        for (Module candidate : byArtifactId.getOrDefault(artifactId, Collections.<Module>emptyList())) {
+            if (groupId == null || groupId.contains("${") || groupId.equals(candidate.getGroupId())) {
+                result.add(candidate);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reads the raw model of the given module's POM, i.e. the module itself for POM modules, and otherwise its POM
+     * attachment.
+     *
+     * @param artifact the module
+     * @return the model, or null if there is no POM, or it cannot be read
+     */
+    private Model getModel(Module artifact) {
+        File pom = artifact.isPom() ? artifact.getFile() : null;
+        for (Artifact subArtifact : artifact.getAttachments()) {
+            if (pom == null && "pom".equals(subArtifact.getExtension()) && subArtifact.getClassifier().isEmpty()) {
+                pom = subArtifact.getFile();
+            }
+        }
+        if (pom == null) {
+            return null;
+        }
+        Model result = modelBuilder.buildRawModel(pom, 0, false).get();
+        if (result == null) {
+            LOGGER.debug("Unable to read dependencies of '{}', deploying it without regard to them", artifact);
         }
+        return result;
     }
 
 }
@@ -19,7 +19,12 @@ package com.isomorphic.maven.mojo;
  * under the License.
  */
 
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.BaseEncoding;
 import com.isomorphic.maven.packaging.Module;
+import com.isomorphic.maven.util.LinkUtils;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.Mojo;
@@ -27,10 +32,22 @@ import org.apache.maven.plugins.annotations.Parameter;
 import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.installation.InstallRequest;
 import org.eclipse.aether.installation.InstallationException;
+import org.eclipse.aether.repository.LocalRepositoryManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Installs a collection of {@link Module}s to the user's local repository. 
@@ -44,27 +61,182 @@ public final class InstallMojo extends AbstractCoreMavenGoalsMojo {
     private static final Logger log = LoggerFactory.getLogger(InstallMojo.class);
 
     /**
-     * Install each of the provided {@link Module}s, along with their SubArtifacts (POMs, JavaDoc bundle, etc.), to a local repository.
+     * The number of {@link Module}s to be installed by each request to the repository system, along with their
+     * SubArtifacts.  Larger batches share the cost of each request (local repository metadata updates, tracking
+     * files, etc.) among more modules.  A value of 0 installs every module in a single request.
+     * <br>
+     * <b>Default value is</b>: <code>1</code>.
+     *
+     * @since 1.6.0
+     */
+    @Parameter(property = "installBatchSize", defaultValue = "1")
+    private int installBatchSize = 1;
+
+    /**
+     * If true, any {@link Module} whose files (including its SubArtifacts) are all identical to those already in the
+     * local repository is left alone, rather than being installed again.  Files are compared by size and, where the
+     * sizes match, by content.
+     * <br>
+     * <b>Default value is</b>: <code>false</code>.
+     *
+     * @since 1.6.0
+     */
+    @Parameter(property = "skipUnchanged", defaultValue = "false")
+    private boolean skipUnchanged;
+
+    /**
+     * If true, the files of each {@link Module} are hard linked into the local repository rather than copied, with
+     * MD5 and SHA-1 checksum files written alongside.  Files that cannot be linked (e.g., because the local repository
+     * is on a different filesystem) are copied instead.  POMs are always written by the repository system itself.
+     * <p>
+     * Linked files share their content with the unpacked distribution, so neither should be modified in place.
+     * <br>
+     * <b>Default value is</b>: <code>false</code>.
+     *
+     * @since 1.6.0
+     */
+    @Parameter(property = "installLinks", defaultValue = "false")
+    private boolean installLinks;
+
+    /**
+     * Install each of the provided {@link Module}s, along with their SubArtifacts (POMs, JavaDoc bundle, etc.), to a local repository,
+     * in batches of {@link #installBatchSize}.
      */
     @Override
     public void doExecute(Set<Module> artifacts) throws MojoExecutionException, MojoFailureException {
 
+        List<Module> modules = new ArrayList<Module>();
         for (Module artifact : artifacts) {
+            if (skipUnchanged && isInstalled(artifact)) {
+                log.debug("Skipping unchanged module {}", artifact);
+            } else {
+                modules.add(artifact);
+            }
+        }
+        if (modules.size() < artifacts.size()) {
+            log.info("Skipped {} unchanged module(s)", artifacts.size() - modules.size());
+        }
+        int size = installBatchSize > 0 ? installBatchSize : Math.max(1, modules.size());
+
+        for (int i = 0; i < modules.size(); i += size) {
 
+            List<Module> batch = modules.subList(i, Math.min(i + size, modules.size()));
             InstallRequest installRequest = new InstallRequest();
-            installRequest.addArtifact(artifact);
+            for (Module artifact : batch) {
+                installRequest.addArtifact(artifact);
 
-            for (Artifact subArtifact : artifact.getAttachments()) {
-                installRequest.addArtifact(subArtifact);
+                for (Artifact subArtifact : artifact.getAttachments()) {
+                    installRequest.addArtifact(subArtifact);
+                }
             }
 
+            long start = System.nanoTime();
             try {
+                if (installLinks) {
+                    for (Module artifact : batch) {
+                        link(artifact);
+                    }
+                }
                 repositorySystem.install(repositorySystemSession, installRequest );
             } catch (InstallationException e) {
                 throw new MojoFailureException("Installation failed: ", e);
+            } catch (IOException e) {
+                throw new MojoExecutionException("Installation failed: ", e);
             }
+            log.info("Installed {} module(s), {} file(s), in {} ms", batch.size(), installRequest.getArtifacts().size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
         }
 
     }
 
+    /**
+     * Returns true if the given module, and each of its SubArtifacts, is already present in the local repository with
+     * exactly the same content.
+     *
+     * @param artifact the module
+     * @return true if installing the module would change nothing
+     */
+    private boolean isInstalled(Module artifact) {
+        try {
+            for (Artifact file : getFiles(artifact)) {
+                if (!isSameContent(file.getFile(), getLocalFile(file))) {
+                    return false;
+                }
+            }
+        } catch (IOException e) {
+            log.debug("Unable to compare {} with the local repository", artifact, e);
+            return false;
+        }
+        return true;
+    }
+
+    //sizes are compared first, so that only files that may well be identical are ever read
+    private static boolean isSameContent(File source, File target) throws IOException {
+        if (source == null || !target.isFile() || source.length() != target.length()) {
+            return false;
+        }
+        if (Files.isSameFile(source.toPath(), target.toPath())) {
+            return true;
+        }
+        HashFunction sha256 = Hashing.sha256();
+        return MoreFiles.asByteSource(source.toPath()).hash(sha256).equals(MoreFiles.asByteSource(target.toPath()).hash(sha256));
+    }
+
+    /**
+     * Links each of the given module's files, other than POMs, into place in the local repository, and writes their
+     * checksums alongside.  The repository system then finds them already in place (the same size, with the same
+     * modification time), and leaves them alone while it updates the repository's metadata.
+     *
+     * @param artifact the module
+     * @throws IOException if a file can be neither linked nor copied
+     */
+    private void link(Module artifact) throws IOException {
+        for (Artifact file : getFiles(artifact)) {
+            if (file.getFile() == null || "pom".equals(file.getExtension())) {
+                continue;
+            }
+            File target = getLocalFile(file);
+            if (!LinkUtils.linkOrCopy(file.getFile(), target)) {
+                log.debug("Unable to link '{}', copied it instead", file.getFile());
+                target.setLastModified(file.getFile().lastModified());
+            }
+            writeChecksums(file.getFile(), target);
+        }
+    }
+
+    //the module, followed by its SubArtifacts
+    private static List<Artifact> getFiles(Module artifact) {
+        List<Artifact> result = new ArrayList<Artifact>();
+        result.add(artifact);
+        result.addAll(Arrays.asList(artifact.getAttachments()));
+        return result;
+    }
+
+    private File getLocalFile(Artifact artifact) {
+        LocalRepositoryManager manager = repositorySystemSession.getLocalRepositoryManager();
+        return new File(manager.getRepository().getBasedir(), manager.getPathForLocalArtifact(artifact));
+    }
+
+    //writes .md5 and .sha1 files next to the target, from a single pass over the source's content
+    private static void writeChecksums(File source, File target) throws IOException {
+        MessageDigest md5;
+        MessageDigest sha1;
+        try {
+            md5 = MessageDigest.getInstance("MD5");
+            sha1 = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(source.toPath())) {
+            for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+                md5.update(buffer, 0, read);
+                sha1.update(buffer, 0, read);
+            }
+        }
+        BaseEncoding hex = BaseEncoding.base16().lowerCase();
+        Files.write(new File(target.getPath() + ".md5").toPath(), hex.encode(md5.digest()).getBytes(StandardCharsets.US_ASCII));
+        Files.write(new File(target.getPath() + ".sha1").toPath(), hex.encode(sha1.digest()).getBytes(StandardCharsets.US_ASCII));
+    }
+
 }
@@ -178,8 +178,8 @@ public class AbstractReifyOnSiteGoalsMojo extends AbstractPackagerMojo {
                 .replace(File.separatorChar, '/'); // normalize to forward slashes in case we're running on Windows
 
         if (file.isDirectory()) {
-            // Skip excluded directories entirely
-            if (!relPath.isEmpty() && !filter.accept(relPath + "/")) {
+            // Skip directories under which nothing could be accepted, without listing their contents
+            if (!relPath.isEmpty() && !filter.mayAcceptUnder(relPath)) {
                 return;
             }
             File[] children = file.listFiles();
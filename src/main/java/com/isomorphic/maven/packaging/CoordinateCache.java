@@ -0,0 +1,161 @@
+package com.isomorphic.maven.packaging;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import com.google.common.hash.Hashing;
+import org.apache.maven.model.Model;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A file recording the Maven coordinates read from each POM, keyed on the POM's content, so that an unchanged POM
+ * need not be read by the Maven model builder again.  Only the coordinates a {@link Module} is built from are
+ * recorded, i.e. groupId, artifactId, version and packaging, as resolved against any parent.
+ * <p>
+ * A file that cannot be read is treated as empty.  Updates are written to a temporary file and moved into place, so
+ * that an interrupted write never leaves a partial cache behind.
+ */
+public class CoordinateCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CoordinateCache.class);
+
+    private static final String SEPARATOR = "\t";
+
+    private final File file;
+    private final Map<String, String> coordinates = new ConcurrentHashMap<String, String>();
+    private volatile boolean modified;
+
+    /**
+     * Opens the cache at the given location, reading any coordinates already recorded there.
+     *
+     * @param file the cache file, which need not exist
+     */
+    public CoordinateCache(File file) {
+        this.file = file;
+        if (file.exists()) {
+            Properties properties = new Properties();
+            try (InputStream in = Files.newInputStream(file.toPath())) {
+                properties.load(in);
+                for (String key : properties.stringPropertyNames()) {
+                    coordinates.put(key, properties.getProperty(key));
+                }
+            } catch (IOException | IllegalArgumentException e) {
+                LOGGER.warn("Unable to read coordinate cache '{}', ignoring it", file.getAbsolutePath(), e);
+                coordinates.clear();
+            }
+        }
+    }
+
+    /**
+     * Returns the key under which the coordinates of a POM having the given content should be recorded.
+     *
+     * @param content the content of the POM, in its final form
+     * @param variant anything other than the POM's content that affects its coordinates
+     * @return the key
+     */
+    public static String getKey(byte[] content, String variant) {
+        return Hashing.sha256().hashBytes(content) + "-" + variant;
+    }
+
+    /**
+     * Returns a model holding the coordinates recorded under the given key, or null if there are none.
+     *
+     * @param key the key, as returned by {@link #getKey(byte[], String)}
+     * @param pom the POM the model should refer to
+     * @return the model, or null
+     */
+    public Model get(String key, File pom) {
+        String value = coordinates.get(key);
+        if (value == null) {
+            return null;
+        }
+        String[] values = value.split(SEPARATOR, -1);
+        if (values.length != 4) {
+            return null;
+        }
+        Model result = new Model();
+        result.setGroupId(decode(values[0]));
+        result.setArtifactId(decode(values[1]));
+        result.setVersion(decode(values[2]));
+        result.setPackaging(decode(values[3]));
+        result.setPomFile(pom);
+        return result;
+    }
+
+    /**
+     * Records the coordinates of the given model under the given key.
+     *
+     * @param key the key, as returned by {@link #getKey(byte[], String)}
+     * @param model the model whose coordinates should be recorded
+     */
+    public void put(String key, Model model) {
+        String value = String.join(SEPARATOR, encode(model.getGroupId()), encode(model.getArtifactId()),
+            encode(model.getVersion()), encode(model.getPackaging()));
+        if (!value.equals(coordinates.put(key, value))) {
+            modified = true;
+        }
+    }
+
+    /**
+     * Writes the cache to its file, if anything was recorded since it was read.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public void save() throws IOException {
+        if (!modified) {
+            return;
+        }
+        Properties properties = new Properties();
+        properties.putAll(coordinates);
+
+        File parent = file.getAbsoluteFile().getParentFile();
+        Files.createDirectories(parent.toPath());
+        File temp = File.createTempFile(file.getName(), ".tmp", parent);
+        try {
+            try (OutputStream out = Files.newOutputStream(temp.toPath())) {
+                properties.store(out, "Maven coordinates, keyed on POM content");
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp.toPath());
+        }
+        modified = false;
+    }
+
+    //nulls are recorded as empty Strings, which are never valid coordinates
+    private static String encode(String value) {
+        return value == null ? "" : value;
+    }
+
+    private static String decode(String value) {
+        return value.isEmpty() ? null : value;
+    }
+
+}
@@ -0,0 +1,172 @@
+package com.isomorphic.maven.packaging;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Parent;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Reads the coordinates of a POM - groupId, artifactId, version, packaging and parent - with a single streaming pass
+ * over its content, as a cheaper alternative to building a raw model with Maven's model builder.
+ * <p>
+ * Only simple POMs are handled: those whose coordinates are given literally, with no property references, DTDs or
+ * entities.  Anything else is left to the model builder, as is any POM that cannot be parsed.
+ */
+public class CoordinateReader {
+
+    private static final XMLInputFactory FACTORY = XMLInputFactory.newFactory();
+    static {
+        FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        FACTORY.setProperty(XMLInputFactory.IS_COALESCING, true);
+    }
+
+    private CoordinateReader() {
+    }
+
+    /**
+     * Returns a model holding the coordinates of the given POM, or null if they cannot be read without the model
+     * builder.  Values are trimmed, and packaging defaults to <code>jar</code>, as they would be by the model builder.
+     * Elements other than the coordinates of the project and its parent are ignored, but any of those coordinates
+     * given more than once is left to the model builder.
+     *
+     * @param pom the POM to be read
+     * @return the model, or null
+     * @throws IOException if the POM cannot be read
+     */
+    public static Model read(File pom) throws IOException {
+
+        Model result = new Model();
+        result.setPomFile(pom);
+        Set<String> read = new HashSet<String>();
+
+        try (InputStream in = Files.newInputStream(pom.toPath())) {
+            XMLStreamReader reader = FACTORY.createXMLStreamReader(in);
+            try {
+                reader.nextTag();
+                if (!"project".equals(reader.getLocalName())) {
+                    return null;
+                }
+                while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                    String name = reader.getLocalName();
+                    if ("parent".equals(name)) {
+                        Parent parent = readParent(reader);
+                        if (parent == null) {
+                            return null;
+                        }
+                        result.setParent(parent);
+                    } else if (isCoordinate(name)) {
+                        String value = readValue(reader);
+                        if (value == null || !read.add(name)) {
+                            return null;
+                        }
+                        set(result, name, value);
+                    } else {
+                        skip(reader);
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            return null;
+        }
+
+        return result.getArtifactId() != null ? result : null;
+    }
+
+    private static Parent readParent(XMLStreamReader reader) throws XMLStreamException {
+        Parent result = new Parent();
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            String name = reader.getLocalName();
+            if ("groupId".equals(name) || "artifactId".equals(name) || "version".equals(name)) {
+                String value = readValue(reader);
+                if (value == null) {
+                    return null;
+                }
+                if ("groupId".equals(name)) {
+                    result.setGroupId(value);
+                } else if ("artifactId".equals(name)) {
+                    result.setArtifactId(value);
+                } else {
+                    result.setVersion(value);
+                }
+            } else {
+                skip(reader);
+            }
+        }
+        //the model builder rejects a parent that is missing any of its coordinates
+        if (result.getGroupId() == null || result.getArtifactId() == null || result.getVersion() == null) {
+            return null;
+        }
+        return result;
+    }
+
+    private static boolean isCoordinate(String name) {
+        return "groupId".equals(name) || "artifactId".equals(name) || "version".equals(name) || "packaging".equals(name);
+    }
+
+    private static void set(Model model, String name, String value) {
+        switch (name) {
+            case "groupId":
+                model.setGroupId(value);
+                break;
+            case "artifactId":
+                model.setArtifactId(value);
+                break;
+            case "version":
+                model.setVersion(value);
+                break;
+            default:
+                model.setPackaging(value);
+        }
+    }
+
+    //the trimmed text of the current element, or null if it is empty or refers to properties
+    private static String readValue(XMLStreamReader reader) throws XMLStreamException {
+        String value = reader.getElementText().trim();
+        return value.isEmpty() || value.contains("${") ? null : value;
+    }
+
+    //moves past the end of the current element, and everything it contains
+    private static void skip(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+}
@@ -20,23 +20,33 @@ package com.isomorphic.maven.packaging;
  */
 
 import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.Table;
 import com.isomorphic.maven.util.AntPathMatcherFilter;
 import com.isomorphic.maven.util.ArchiveUtils;
+import com.isomorphic.maven.util.ExtractionWriter;
+import com.isomorphic.maven.util.LinkUtils;
+import com.isomorphic.maven.util.RelocatedZipEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.util.CollectionUtils;
 
 import java.io.File;
 import java.io.FileFilter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.function.Function;
 
 import static com.isomorphic.maven.packaging.License.*;
 import static com.isomorphic.maven.packaging.Product.*;
@@ -84,6 +94,14 @@ public final class Distribution {
     private static final String SMARTGWT_CLIENT_JAVADOC = "**/doc/javadoc/**";
     private static final String SMARTGWT_SERVER_JAVADOC = "**/doc/server/javadoc/**";
 
+    //the number of archive entries extracted between each record written to the journal
+    private static final int JOURNAL_BATCH_SIZE = 1000;
+
+    //javadoc extracted to each of these directories is bundled into the corresponding JAR
+    private static final Map<String, String> JAVADOC_JARS = ImmutableMap.of(
+            "doc/api/client/", "doc/lib/smartgwt-javadoc.jar",
+            "doc/api/server/", "doc/lib/isomorphic-javadoc.jar");
+
     private static final Table<Product, License, Distribution> DISTRIBUTIONS = HashBasedTable.create();
 
     /*
@@ -381,83 +399,231 @@ public final class Distribution {
     /**
      * Extract the relevant contents from each file in the distribution.  Additionally creates ZIP/JAR
      * files from specified resources (e.g., javadoc).
+     * <p>
+     * Resources destined for an assembly (i.e., anything mapped to <code>assembly/[name]/...</code>) are not
+     * extracted at all - each assembly is instead written directly from the compressed entries of the
+     * distribution's archives.
+     * <p>
+     * If the context has a {@link UnpackContext#getJournal() journal}, steps it records as complete are skipped.
+     * Entries in extraction batches already complete are still read from each archive's central directory, but
+     * not inflated.
      *
      * @param to The directory to which each file should be extracted.
+     * @param context the settings specific to this call
      * @throws IOException on any IOException during unzip operations
      */
-    public void unpack(File to) throws IOException {
+    public void unpack(File to, UnpackContext context) throws IOException {
 
-        outer:
-        for (File file : files) {
+        File assembliesDir = new File(to, "assembly");
+        Map<String, Map<String, RelocatedZipEntry>> assemblies = new TreeMap<String, Map<String, RelocatedZipEntry>>();
+        Map<String, Map<String, RelocatedZipEntry>> javadoc = new TreeMap<String, Map<String, RelocatedZipEntry>>();
+        List<ZipFile> zips = new ArrayList<ZipFile>();
+        FutureTask<Void> javadocTask = null;
+        ExtractionWriter writer = new ExtractionWriter();
 
-            String ext = FilenameUtils.getExtension(file.getName()).toUpperCase();
+        try {
+            outer:
+            for (File file : files) {
 
-            //copy uncompressed files to target, renaming as necessary per 'contents' configuration
-            if (! "ZIP".equals(ext)) {
-                for(Map.Entry<String, AntPathMatcherFilter> filterEntry : content.entrySet()) {
-                    AntPathMatcherFilter filter = filterEntry.getValue();
+                String ext = FilenameUtils.getExtension(file.getName()).toUpperCase();
 
-                    if (filter.accept(file.getName())) {
-                        File target = FileUtils.getFile(to, ArchiveUtils.rewritePath(file.getName(), filterEntry.getKey()));
+                //copy uncompressed files to target, renaming as necessary per 'contents' configuration
+                if (! "ZIP".equals(ext)) {
+                    for(Map.Entry<String, AntPathMatcherFilter> filterEntry : content.entrySet()) {
+                        AntPathMatcherFilter filter = filterEntry.getValue();
+
+                        if (filter.accept(file.getName())) {
+                            File target = FileUtils.getFile(to, ArchiveUtils.rewritePath(file.getName(), filterEntry.getKey()));
 
-                        // filter jar for skins?
+                            // filter jar for skins?
 
-                        FileUtils.copyFile(file, target);
-                        LOGGER.debug("Copied file '{}' to file '{}'", file.getName(), target.getAbsolutePath());
-                        continue outer;
+                            FileUtils.copyFile(file, target);
+                            context.record(to, target);
+                            LOGGER.debug("Copied file '{}' to file '{}'", file.getName(), target.getAbsolutePath());
+                            continue outer;
+                        }
                     }
+                    FileUtils.copyFileToDirectory(file, new File(to, "lib"));
+                    context.record(to, FileUtils.getFile(to, "lib", file.getName()));
+                    continue outer;
                 }
-                FileUtils.copyFileToDirectory(file, new File(to, "lib"));
-                continue outer;
-            }
 
-            //otherwise extract contents (again renaming / relocating contents as necessary)
-            ZipFile zip = new ZipFile(file);
-            if (product != REIFY_ONSITE) {
-                Enumeration<? extends ZipEntry> entries = zip.entries();
+                //otherwise extract contents (again renaming / relocating contents as necessary)
+                ZipFile zip = new ZipFile(file);
+                zips.add(zip);
+                if (product != REIFY_ONSITE) {
+                    Enumeration<ZipArchiveEntry> entries = zip.getEntries();
+                    Map<String, String> excludedDirectories = new HashMap<String, String>();
+                    String excluded = null;
+                    int index = 0;
+                    boolean extracted = context.isComplete(getBatchStep(file, 0));
+
+                    for (; entries.hasMoreElements(); index++) {
+                        //each full batch is recorded before the first entry of the next is read
+                        if (index > 0 && index % JOURNAL_BATCH_SIZE == 0) {
+                            context.complete(getBatchStep(file, index / JOURNAL_BATCH_SIZE - 1));
+                            extracted = context.isComplete(getBatchStep(file, index / JOURNAL_BATCH_SIZE));
+                        }
+                        ZipArchiveEntry entry = entries.nextElement();
+                        if (entry.isDirectory()) {  // OR entry matches skin exclusion
+                            continue;
+                        }
+                        //entries are usually grouped by directory, so that the last excluded subtree very often
+                        //contains the next entry as well.  otherwise look it up by the entry's parent directory
+                        if (excluded != null && entry.getName().startsWith(excluded)) {
+                            continue;
+                        }
+                        excluded = getExcludedDirectory(entry.getName(), excludedDirectories);
+                        if (excluded != null) {
+                            continue;
+                        }
+                        //an entry may be matched to more than one location - inflate it only once
+                        Set<File> targets = new LinkedHashSet<File>();
+                        for (Map.Entry<String, AntPathMatcherFilter> filterEntry : content.entrySet()) {
+                            AntPathMatcherFilter filter = filterEntry.getValue();
+                            if (filter.accept(entry.getName()) || product == REIFY_ONSITE) {
+                                String path = FilenameUtils.separatorsToUnix(ArchiveUtils.rewritePath(entry.getName(), filterEntry.getKey()));
+
+                                //defer assembly resources until the assembly itself is written
+                                String[] assembly = splitAssemblyPath(path);
+                                if (assembly != null) {
+                                    if (isUnwantedSkin(assembly[0], assembly[1], context)) {
+                                        continue;
+                                    }
+                                    Map<String, RelocatedZipEntry> assemblyEntries = assemblies.get(assembly[0]);
+                                    if (assemblyEntries == null) {
+                                        assemblyEntries = new LinkedHashMap<String, RelocatedZipEntry>();
+                                        assemblies.put(assembly[0], assemblyEntries);
+                                    }
+                                    assemblyEntries.put(assembly[1], new RelocatedZipEntry(zip, entry, assembly[1]));
+                                    continue;
+                                }
+
+                                //likewise javadoc, unless it's wanted on the filesystem
+                                String[] javadocPath = context.isExtractJavadoc() ? null : splitJavadocPath(path);
+                                if (javadocPath != null) {
+                                    Map<String, RelocatedZipEntry> javadocEntries = javadoc.get(javadocPath[0]);
+                                    if (javadocEntries == null) {
+                                        javadocEntries = new LinkedHashMap<String, RelocatedZipEntry>();
+                                        javadoc.put(javadocPath[0], javadocEntries);
+                                    }
+                                    javadocEntries.put(javadocPath[1], new RelocatedZipEntry(zip, entry, javadocPath[1]));
+                                    continue;
+                                }
+
+                                targets.add(FileUtils.getFile(to, path));
+                                context.record(path);
+                            }
+                        }
 
-                while (entries.hasMoreElements()) {
-                    ZipEntry entry = entries.nextElement();
-                    if (entry.isDirectory()) {  // OR entry matches skin exclusion
-                        continue;
+                        File source = null;
+                        for (File target : extracted ? Collections.<File>emptySet() : targets) {
+                            if (source == null) {
+                                try (InputStream in = zip.getInputStream(entry)) {
+                                    writer.write(in, entry.getSize(), target);
+                                }
+                                LOGGER.debug("Copied input stream to file '{}'", target.getAbsolutePath());
+                                source = target;
+                            } else {
+                                boolean linked = LinkUtils.linkOrCopy(source, target);
+                                LOGGER.debug("{} file '{}' to '{}'", linked ? "Linked" : "Copied", source.getAbsolutePath(), target.getAbsolutePath());
+                            }
+                        }
                     }
-                    for (Map.Entry<String, AntPathMatcherFilter> filterEntry : content.entrySet()) {
-                        AntPathMatcherFilter filter = filterEntry.getValue();
-                        if (filter.accept(entry.getName()) || product == REIFY_ONSITE) {
-                            File target = FileUtils.getFile(to, ArchiveUtils.rewritePath(entry.getName(), filterEntry.getKey()));
-                            FileUtils.copyInputStreamToFile(zip.getInputStream(entry), target);
-                            LOGGER.debug("Copied input stream to file '{}'", target.getAbsolutePath());
+                    context.complete(getBatchStep(file, (index - 1) / JOURNAL_BATCH_SIZE));
+                } else {
+                    // The REIFY_ONSITE goals are completely different from regular framework install goals.
+                    // We don't need to be selective, or rename assets, or move them elsewhere - we can
+                    // just unzip
+                    Enumeration<ZipArchiveEntry> entries = zip.getEntries();
+
+                    while (entries.hasMoreElements()) {
+                        ZipArchiveEntry entry = entries.nextElement();
+                        if (entry.isDirectory()) {  // OR entry matches skin exclusion
+                            continue;
+                        }
+                        File target = FileUtils.getFile(to, entry.getName());
+                        try (InputStream in = zip.getInputStream(entry)) {
+                            writer.write(in, entry.getSize(), target);
                         }
+                        context.record(entry.getName());
+                        LOGGER.debug("Copied input stream to file '{}'", target.getAbsolutePath());
                     }
                 }
-            } else {
-                // The REIFY_ONSITE goals are completely different from regular framework install goals.
-                // We don't need to be selective, or rename assets, or move them elsewhere - we can
-                // just unzip
-                Enumeration<? extends ZipEntry> entries = zip.entries();
-
-                while (entries.hasMoreElements()) {
-                    ZipEntry entry = entries.nextElement();
-                    if (entry.isDirectory()) {  // OR entry matches skin exclusion
-                        continue;
+            }
+
+            if (!javadoc.isEmpty()) {
+                javadocTask = new FutureTask<Void>(() -> {
+                    for (Map.Entry<String, Map<String, RelocatedZipEntry>> jar : javadoc.entrySet()) {
+                        context.record(jar.getKey());
+                        if (context.isComplete("javadoc " + jar.getKey())) {
+                            continue;
+                        }
+                        LOGGER.debug("Repackaging Javadoc to '{}'...", jar.getKey());
+                        ArchiveUtils.jar(null, jar.getValue().values(), new File(to, jar.getKey()), context.getArchiveOptions());
+                        context.complete("javadoc " + jar.getKey());
                     }
-                    File target = FileUtils.getFile(to, entry.getName());
-                    FileUtils.copyInputStreamToFile(zip.getInputStream(entry), target);
-                    LOGGER.debug("Copied input stream to file '{}'", target.getAbsolutePath());
+                    return null;
+                });
+                if (context.isBackgroundJavadoc()) {
+                    Thread thread = new Thread(javadocTask, "isc-javadoc");
+                    thread.setDaemon(true);
+                    thread.start();
+                } else {
+                    javadocTask.run();
                 }
             }
-            zip.close();
-        }
 
-        /*
-         * Create any number of assemblies by dropping their resources here.
-         * Each subdirectory will get zipped up and then deleted
-         */
-        File assembliesDir = new File(to, "assembly");
+            /*
+             * Create any number of assemblies, each from the entries collected above plus any resources
+             * dropped in a subdirectory of the same name (which is deleted once zipped up)
+             */
+            File[] directories = assembliesDir.listFiles(new FileFilter() {
+                @Override
+                public boolean accept(File arg0) {
+                    return arg0.isDirectory();
+                }
+            });
+            if (directories != null) {
+                for (File directory : directories) {
+                    if (!assemblies.containsKey(directory.getName())) {
+                        assemblies.put(directory.getName(), new LinkedHashMap<String, RelocatedZipEntry>());
+                    }
+                }
+            }
+            for (Map.Entry<String, Map<String, RelocatedZipEntry>> assembly : assemblies.entrySet()) {
+                String name = assembly.getKey();
+                File directory = new File(assembliesDir, name);
+                if (!context.isComplete("assembly " + name)) {
+                    LOGGER.debug("Copying resources for assembly '{}'", name);
+                    pruneSkins(name, directory, context);
+                    ArchiveUtils.zip(directory, assembly.getValue().values(), FileUtils.getFile(assembliesDir, name + ".zip"), context.getArchiveOptions());
+                    context.complete("assembly " + name);
+                }
+                FileUtils.deleteQuietly(directory);
+                context.record("assembly/" + name + ".zip");
+                context.removeTree("assembly/" + name);
+            }
+
+            if (javadocTask != null) {
+                awaitJavadoc(javadocTask);
+            }
+        } finally {
+            if (javadocTask != null && !javadocTask.isDone()) {
+                //the archives it reads from can't be closed until it's done
+                try {
+                    javadocTask.get();
+                } catch (Exception ignore) {
+                }
+            }
+            for (ZipFile zip : zips) {
+                ZipFile.closeQuietly(zip);
+            }
+        }
 
-        // Before we zip up and delete the smartclient-resources directory, we need to add its
-        // contents to the Spring Boot starter JARs.  We do this by unzipping to a filesystem
-        // tree, adding to that tree, then zipping that up
+        // The Spring Boot starter JARs need the contents of the smartclient-resources assembly as
+        // well.  Each starter is rewritten in a single pass, copying its own entries and then the
+        // assembly's entries (compressed bytes as-is) into a new JAR that replaces the original
         File springBootDir = new File(to, "spring-boot/");
         File springBootJar = null, springBootShowcaseJar = null;
         if (springBootDir.exists()) {
@@ -474,114 +640,292 @@ public final class Distribution {
             // rather than static/ because files in static/ are only visible to the client, and some of
             // these files must be readable by the server (built-in types and schema dataSources in the
             // base starter and example dataSources in the showcase starter)
-            if (springBootJar != null) {
-                File scResources = new File(assembliesDir, "smartclient-resources");
-                if (scResources.exists()) {
-                    String baseName = springBootJar.getName().substring(0, springBootJar.getName().lastIndexOf('.'));
-                    File workDir = new File(springBootDir, baseName);
-                    workDir.mkdirs();
-                    ArchiveUtils.unzip(springBootJar, workDir);
-                    springBootJar.delete();
-                    File scSpringBootLocation = new File(workDir, "META-INF/resources");
-                    scSpringBootLocation.mkdirs();
-                    FileUtils.listFiles(scResources, null, true).forEach(file -> {
-                        String relativePath = file.getAbsolutePath().substring(scResources.getAbsolutePath().length()+1);
-                        // Don't want the handful of config files in WEB-INF - we already have
-                        // those files in the correct places for Spring Boot as part of the
-                        // starter
-                        if (!(relativePath.startsWith("WEB-INF"))) {
-                            File target = new File(scSpringBootLocation, relativePath);
-                            try {
-                                FileUtils.copyFile(file, target);
-                            } catch (IOException ioe) {
-                                LOGGER.warn("Caught Exception while copying file '{}' to '{}'", file.getName(), target.getAbsolutePath(), ioe);
-                            }
-                        }
-                    });
-
-                    // Add the worldDS dataSource to the core spring-boot starter - it's used in the Hello World example
-                    File sdkResources = new File(assembliesDir, "smartclient-showcase-resources");
-                    File worldDS = new File(sdkResources, "examples/shared/ds/worldDS.ds.xml");
-                    String relativePath = worldDS.getAbsolutePath().substring(sdkResources.getAbsolutePath().length()+1);
-                    File target = new File(scSpringBootLocation, relativePath);
-                    try {
-                        FileUtils.copyFile(worldDS, target);
-                    } catch (IOException ioe) {
-                        LOGGER.warn("Caught Exception while copying file '{}' to '{}'", worldDS.getName(), target.getAbsolutePath(), ioe);
-                    }
+            File scResources = new File(assembliesDir, "smartclient-resources.zip");
+            File showcaseResources = new File(assembliesDir, "smartclient-showcase-resources.zip");
+            if (springBootJar != null && scResources.exists()) {
+                Map<File, Function<String, String>> sources = new LinkedHashMap<File, Function<String, String>>();
+                // Don't want the handful of config files in WEB-INF - we already have those files
+                // in the correct places for Spring Boot as part of the starter
+                sources.put(scResources, name -> name.startsWith("WEB-INF") ? null : "META-INF/resources/" + name);
+                // Add the worldDS dataSource to the core spring-boot starter - it's used in the Hello World example
+                sources.put(showcaseResources, name -> "examples/shared/ds/worldDS.ds.xml".equals(name) ? "META-INF/resources/" + name : null);
+                mergeIntoJar(springBootJar, sources, context);
+            }
 
-                    springBootJar = new File(springBootDir, baseName + ".jar");
-                    ArchiveUtils.zip(workDir, springBootJar);
+            if (springBootShowcaseJar != null && showcaseResources.exists()) {
+                Map<File, Function<String, String>> sources = new LinkedHashMap<File, Function<String, String>>();
+                // Bit of a hack, but this is a one-off
+                sources.put(showcaseResources, name -> "META-INF/resources/" + ("showcase/index.html".equals(name) ? "showcase.html" : name));
+                mergeIntoJar(springBootShowcaseJar, sources, context);
+            }
+        }
+
+        //javadoc that was extracted still needs to be bundled
+        if (context.isExtractJavadoc()) {
+            LOGGER.debug("Repackaging Javadoc...");
+            for (Map.Entry<String, String> jar : JAVADOC_JARS.entrySet()) {
+                File directory = FileUtils.getFile(to, jar.getKey());
+                if (!directory.exists()) {
+                    continue;
+                }
+                if (!context.isComplete("javadoc " + jar.getValue())) {
+                    ArchiveUtils.jar(directory, new File(to, jar.getValue()), context.getArchiveOptions());
+                    context.complete("javadoc " + jar.getValue());
                 }
+                context.record(jar.getValue());
             }
+        }
+    }
 
-            if (springBootShowcaseJar != null) {
-                File scResources = new File(assembliesDir, "smartclient-showcase-resources");
-                if (scResources.exists()) {
-                    String baseName = springBootShowcaseJar.getName().substring(0, springBootShowcaseJar.getName().lastIndexOf('.'));
-                    File workDir = new File(springBootDir, baseName);
-                    workDir.mkdirs();
-                    ArchiveUtils.unzip(springBootShowcaseJar, workDir);
-                    springBootShowcaseJar.delete();
-                    File scSpringBootLocation = new File(workDir, "META-INF/resources");
-                    scSpringBootLocation.mkdirs();
-                    FileUtils.listFiles(scResources, null, true).forEach(file -> {
-                        String relativePath = file.getAbsolutePath().substring(scResources.getAbsolutePath().length()+1);
-                        // Bit of a hack, but this is a one-off
-                        if ("showcase/index.html".equals(relativePath)
-                             || "showcase\\index.html".equals(relativePath))  // In case we are running on Windows
-                        {
-                            relativePath = "showcase.html";
-                        }
-                        File target = new File(scSpringBootLocation, relativePath);
-                        try {
-                            FileUtils.copyFile(file, target);
-                        } catch (IOException ioe) {
-                            LOGGER.warn("Caught Exception while copying file '{}' to '{}'", file.getName(), target.getAbsolutePath(), ioe);
-                        }
-                    });
-                    springBootShowcaseJar = new File(springBootDir, baseName + ".jar");
-                    ArchiveUtils.zip(workDir, springBootShowcaseJar);
+    /**
+     * Waits for javadoc JARs being written on a background thread, rethrowing any exception encountered there.
+     *
+     * @param task the task writing the JARs
+     * @throws IOException on any I/O error encountered by the task, or if interrupted while waiting
+     */
+    private static void awaitJavadoc(FutureTask<Void> task) throws IOException {
+        try {
+            task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while repackaging Javadoc");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Unable to repackage Javadoc", e.getCause());
+        }
+    }
+
+    /**
+     * Splits a path within one of the directories javadoc is extracted to into the path of the JAR that bundles
+     * the directory, and the path of the resource within the JAR.
+     *
+     * @param path a path, as rewritten by {@link ArchiveUtils#rewritePath(String, String)}
+     * @return the JAR path and the path of the resource within it, or null if the path does not denote javadoc
+     */
+    private static String[] splitJavadocPath(String path) {
+        for (Map.Entry<String, String> jar : JAVADOC_JARS.entrySet()) {
+            if (path.startsWith(jar.getKey())) {
+                return new String[] {jar.getValue(), path.substring(jar.getKey().length())};
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the outermost directory containing the given path under which no content filter could accept anything,
+     * or null if there is no such directory.  Results are cached by directory, such that most paths are resolved by
+     * a single lookup of their parent.
+     *
+     * @param path the path of some archive entry
+     * @param cache the results of previous calls, keyed on directory (with trailing separator).  Directories that
+     *              are not excluded map to an empty String.
+     * @return the path of the excluded directory, with trailing separator, or null
+     */
+    private String getExcludedDirectory(String path, Map<String, String> cache) {
+
+        int separator = path.lastIndexOf('/', path.length() - 2);
+        if (separator == -1) {
+            return null;
+        }
+        String directory = path.substring(0, separator + 1);
+
+        String result = cache.get(directory);
+        if (result == null) {
+            result = getExcludedDirectory(directory, cache);
+            if (result == null) {
+                result = directory;
+                for (AntPathMatcherFilter filter : content.values()) {
+                    if (filter.mayAcceptUnder(directory)) {
+                        result = "";
+                        break;
+                    }
                 }
             }
+            cache.put(directory, result);
         }
+        return result.isEmpty() ? null : result;
+    }
+
+    /**
+     * Rewrites the given JAR to include the entries of other archives, each renamed per the function mapped to its
+     * archive (which may return null to leave an entry out).  Entries are copied without being decompressed, and
+     * entries from the given archives replace any of the JAR's own entries having the same name.
+     *
+     * @param jar the JAR to be rewritten
+     * @param sources the archives whose entries should be added, each mapped to the function used to rename its entries
+     * @param context the settings of the unpack the JAR belongs to
+     * @throws IOException on any I/O error
+     */
+    private void mergeIntoJar(File jar, Map<File, Function<String, String>> sources, UnpackContext context) throws IOException {
 
-        List assemblies = CollectionUtils.arrayToList(assembliesDir.listFiles(new FileFilter() {
-            @Override
-            public boolean accept(File arg0) {
-                return arg0.isDirectory();
+        String step = "starter " + jar.getName();
+        if (context.isComplete(step)) {
+            return;
+        }
+        LOGGER.debug("Merging resources into '{}'", jar.getAbsolutePath());
+
+        File merged = new File(jar.getParentFile(), jar.getName() + ".tmp");
+        List<ZipFile> zips = new ArrayList<ZipFile>();
+        try {
+            try {
+                Map<String, RelocatedZipEntry> entries = new LinkedHashMap<String, RelocatedZipEntry>();
+
+                ZipFile original = new ZipFile(jar);
+                zips.add(original);
+                for (ZipArchiveEntry entry : Collections.list(original.getEntries())) {
+                    entries.put(entry.getName(), new RelocatedZipEntry(original, entry, entry.getName()));
+                }
+
+                for (Map.Entry<File, Function<String, String>> source : sources.entrySet()) {
+                    if (!source.getKey().exists()) {
+                        LOGGER.warn("Unable to find '{}' while building '{}'", source.getKey().getName(), jar.getName());
+                        continue;
+                    }
+                    ZipFile zip = new ZipFile(source.getKey());
+                    zips.add(zip);
+                    for (ZipArchiveEntry entry : Collections.list(zip.getEntries())) {
+                        String name = source.getValue().apply(entry.getName());
+                        if (name != null) {
+                            entries.put(name, new RelocatedZipEntry(zip, entry, name));
+                        }
+                    }
+                }
+
+                ArchiveUtils.zip(null, entries.values(), merged, context.getArchiveOptions());
+            } finally {
+                for (ZipFile zip : zips) {
+                    ZipFile.closeQuietly(zip);
+                }
             }
-        }));
-        for (Object o : assemblies) {
-            File assembly = (File) o;
-            String name = FilenameUtils.getBaseName(assembly.getName());
-            LOGGER.debug("Copying resources for assembly '{}'", name);
-            ArchiveUtils.zip(assembly, FileUtils.getFile(assembliesDir, name + ".zip"));
-            FileUtils.deleteQuietly(assembly);
+            Files.move(merged.toPath(), jar.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            //left behind only if the merge failed
+            FileUtils.deleteQuietly(merged);
         }
+        context.complete(step);
+    }
 
-        LOGGER.debug("Repackaging Javadoc...");
-        File docLib = new File(to, "doc/lib");
+    private static String getBatchStep(File archive, int batch) {
+        return "extract " + archive.getName() + " " + batch;
+    }
 
-        //TODO these paths should probably all be stuck in some constant
-        File client = FileUtils.getFile(to, "doc/api/client");
-        if (client.exists()) {
-            ArchiveUtils.jar(client, new File(docLib, "smartgwt-javadoc.jar"));
+    /**
+     * Splits a path of the form <code>assembly/[name]/[path]</code> into its name and path components.
+     *
+     * @param path a path, as rewritten by {@link ArchiveUtils#rewritePath(String, String)}
+     * @return the assembly name and the path of the resource within it, or null if the path does not denote an assembly resource
+     */
+    private static String[] splitAssemblyPath(String path) {
+        if (!path.startsWith("assembly/")) {
+            return null;
         }
+        int index = path.indexOf('/', "assembly/".length());
+        if (index < 0) {
+            return null;
+        }
+        return new String[] {path.substring("assembly/".length(), index), path.substring(index + 1)};
+    }
 
-        File server = FileUtils.getFile(to, "doc/api/server");
-        if (server.exists()) {
-            ArchiveUtils.jar(server, new File(docLib, "isomorphic-javadoc.jar"));
+    /**
+     * Returns true if the given path within an assembly belongs to a skin that is not to be retained.  Only
+     * directories immediately within the assembly's skin directory are considered to be skins.
+     *
+     * @param assembly the name of the assembly
+     * @param path the path of the resource within the assembly
+     * @param context the settings of the unpack, naming the skins to be retained
+     * @return true if the resource should be left out of the assembly
+     */
+    private boolean isUnwantedSkin(String assembly, String path, UnpackContext context) {
+        if (context.getSkins() == null) {
+            return false;
+        }
+        String skinDir = skinResources.get(getAssemblyPath(assembly));
+        String skin = skinDir == null ? null : getSkinName(path, skinDir);
+        return skin != null && !context.isRetained(skin);
+    }
+
+    /**
+     * Returns the name of the skin to which the given archive entry belongs, i.e. that of the directory immediately
+     * within the archive's skin directory that contains it.
+     *
+     * @param path the name of the entry
+     * @param skinDir the directory holding one subdirectory per skin, as mapped in {@link #getSkinResources()}
+     * @return the name of the skin, or null if the entry does not belong to one
+     */
+    public static String getSkinName(String path, String skinDir) {
+        if (!path.startsWith(skinDir + "/")) {
+            return null;
+        }
+        int index = path.indexOf('/', skinDir.length() + 1);
+        return index > skinDir.length() + 1 ? path.substring(skinDir.length() + 1, index) : null;
+    }
+
+    /**
+     * Deletes the directories of any skins that are not to be retained from among the resources dropped in the given
+     * assembly's directory.
+     *
+     * @param assembly the name of the assembly
+     * @param directory the directory holding resources to be added to the assembly
+     * @param context the settings of the unpack, naming the skins to be retained
+     * @throws IOException if a directory cannot be deleted
+     */
+    private void pruneSkins(String assembly, File directory, UnpackContext context) throws IOException {
+        String skinDir = skinResources.get(getAssemblyPath(assembly));
+        if (context.getSkins() == null || skinDir == null) {
+            return;
+        }
+        File[] candidates = new File(directory, skinDir).listFiles(File::isDirectory);
+        if (candidates != null) {
+            for (File candidate : candidates) {
+                if (!context.isRetained(candidate.getName())) {
+                    LOGGER.info("Deleting '{}' skin resources at '{}'", candidate.getName(), candidate);
+                    FileUtils.deleteDirectory(candidate);
+                }
+            }
         }
     }
 
+    //assemblies are listed in skinResources by their path relative to the unpacked distribution
+    private static String getAssemblyPath(String assembly) {
+        return "/assembly/" + assembly + ".zip";
+    }
+
     private Distribution skins(String pathToFile, String pathToSkinDir) {
         skinResources.put(pathToFile, pathToSkinDir);
         return this;
     }
 
+    /**
+     * Returns the archives containing skins, each mapped to the directory within it that holds one subdirectory per
+     * skin.  Keys are paths relative to the directory the distribution is unpacked to, with leading separator (or,
+     * for Reify OnSite, just a placeholder).
+     *
+     * @return the archives containing skins
+     */
     public Map<String, String> getSkinResources() {
         return skinResources;
     }
 
+    /**
+     * Returns those {@link #getSkinResources() archives containing skins} whose unwanted skins must be pruned once
+     * unpacked, i.e. all but the assemblies that {@link #unpack(File, UnpackContext)} already writes without them.
+     *
+     * @param context the settings the distribution was unpacked with
+     * @return the archives containing skins still to be pruned
+     */
+    public Map<String, String> getSkinResourcesToPrune(UnpackContext context) {
+        if (context.getSkins() == null) {
+            return skinResources;
+        }
+        Map<String, String> result = new HashMap<String, String>();
+        for (Map.Entry<String, String> resource : skinResources.entrySet()) {
+            if (!resource.getKey().startsWith("/assembly/")) {
+                result.put(resource.getKey(), resource.getValue());
+            }
+        }
+        return result;
+    }
+
 }
@@ -0,0 +1,289 @@
+package com.isomorphic.maven.packaging;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * A record of the files making up an unpacked distribution, each classified on arrival by the part it plays in
+ * building Maven artifacts.  Allows those files to be found by lookup rather than by repeatedly walking the
+ * directory they were unpacked to.
+ * <p>
+ * Paths are recorded relative to the root of the unpacked distribution, with forward slashes, such that the
+ * manifest remains valid when that root is moved.
+ */
+public class ExtractionManifest {
+
+    /**
+     * The roles a file may play.  A file may have more than one, or none at all.
+     */
+    public enum Kind {
+        /**
+         * A JAR, ZIP or POM (.xml) to be installed as (or as part of) a Maven artifact - i.e., any such file in the
+         * root directory or in any lib, pom, assembly or spring-boot directory beneath it, along with the Spring Boot
+         * starter parent POM.
+         */
+        ARTIFACT,
+        /**
+         * A .pom file, wherever it may be.  Looked up {@link #getPoms(String, File) by name}.
+         */
+        POM,
+        /**
+         * A file in the doc directory, or in a lib directory beneath it.  Looked up {@link #getJavadoc(String, File)
+         * by prefix}.
+         */
+        JAVADOC,
+        /**
+         * A .bat, .sh or .command script, wherever it may be.
+         */
+        SCRIPT
+    }
+
+    private static final Set<String> ARTIFACT_DIRECTORIES = new HashSet<String>(Arrays.asList("lib", "pom", "assembly", "spring-boot"));
+    private static final String[] ARTIFACT_SUFFIXES = {"jar", "xml", "zip"};
+    private static final String STARTER_PARENT = "smart*-spring-boot-starter-parent*.pom";
+    private static final String[] SCRIPT_EXTENSIONS = {".bat", ".sh", ".command"};
+
+    private final Map<String, Set<Kind>> files = new LinkedHashMap<String, Set<Kind>>();
+    private final Map<String, List<String>> poms = new HashMap<String, List<String>>();
+    private final TreeMap<String, List<String>> javadoc = new TreeMap<String, List<String>>();
+
+    /**
+     * Creates a manifest listing every file under the given directory.
+     *
+     * @param root the directory to be listed
+     * @return the manifest
+     * @throws IOException if the directory cannot be listed
+     */
+    public static ExtractionManifest scan(File root) throws IOException {
+        ExtractionManifest result = new ExtractionManifest();
+        result.addTree(root, "");
+        return result;
+    }
+
+    /**
+     * Adds every file under the given subdirectory of the root.
+     *
+     * @param root the root of the unpacked distribution
+     * @param directory the path of the subdirectory, relative to the root.  An empty String for the root itself.
+     * @throws IOException if the subdirectory cannot be listed
+     */
+    public void addTree(File root, String directory) throws IOException {
+        Path base = root.toPath();
+        Path start = directory.isEmpty() ? base : base.resolve(directory);
+        if (!Files.isDirectory(start)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(start)) {
+            Iterator<Path> iterator = paths.filter(Files::isRegularFile).iterator();
+            while (iterator.hasNext()) {
+                add(FilenameUtils.separatorsToUnix(base.relativize(iterator.next()).toString()));
+            }
+        }
+    }
+
+    /**
+     * Adds the given file, relative to the root.
+     *
+     * @param root the root of the unpacked distribution
+     * @param file a file beneath the root
+     */
+    public void add(File root, File file) {
+        add(FilenameUtils.separatorsToUnix(root.toPath().relativize(file.toPath()).toString()));
+    }
+
+    /**
+     * Adds the file at the given path, classifying it by name and location.  Adding the same path more than once has
+     * no further effect.
+     *
+     * @param path the path of the file, relative to the root, with forward slashes
+     */
+    public synchronized void add(String path) {
+        if (files.containsKey(path)) {
+            return;
+        }
+        String name = FilenameUtils.getName(path);
+        String[] directories = path.contains("/") ? path.substring(0, path.lastIndexOf('/')).split("/") : new String[0];
+
+        Set<Kind> kinds = EnumSet.noneOf(Kind.class);
+        if (isArtifact(name, directories)) {
+            kinds.add(Kind.ARTIFACT);
+        }
+        if (name.toLowerCase().endsWith(".pom")) {
+            kinds.add(Kind.POM);
+            poms.computeIfAbsent(name.toLowerCase(), key -> new ArrayList<String>()).add(path);
+        }
+        if (isJavadoc(directories)) {
+            kinds.add(Kind.JAVADOC);
+            javadoc.computeIfAbsent(name, key -> new ArrayList<String>()).add(path);
+        }
+        for (String extension : SCRIPT_EXTENSIONS) {
+            if (name.endsWith(extension)) {
+                kinds.add(Kind.SCRIPT);
+            }
+        }
+        files.put(path, kinds);
+    }
+
+    /**
+     * Removes every file under the given directory, e.g. when the directory itself is deleted.
+     *
+     * @param directory the path of the directory, relative to the root, with forward slashes
+     */
+    public synchronized void removeTree(String directory) {
+        String prefix = directory.endsWith("/") ? directory : directory + "/";
+        for (Iterator<String> iterator = files.keySet().iterator(); iterator.hasNext(); ) {
+            String path = iterator.next();
+            if (path.startsWith(prefix)) {
+                iterator.remove();
+                String name = FilenameUtils.getName(path);
+                removeFrom(poms, name.toLowerCase(), path);
+                removeFrom(javadoc, name, path);
+            }
+        }
+    }
+
+    /**
+     * Returns the files of the given kind.
+     *
+     * @param kind the kind of file
+     * @param root the directory against which paths should be resolved
+     * @return the files, in the order they were added
+     */
+    public synchronized Collection<File> getFiles(Kind kind, File root) {
+        List<File> result = new ArrayList<File>();
+        for (Map.Entry<String, Set<Kind>> file : files.entrySet()) {
+            if (file.getValue().contains(kind)) {
+                result.add(new File(root, file.getKey()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the paths, relative to the root, of the files of the given kind.
+     *
+     * @param kind the kind of file
+     * @return the paths, in the order they were added
+     */
+    public synchronized Collection<String> getPaths(Kind kind) {
+        List<String> result = new ArrayList<String>();
+        for (Map.Entry<String, Set<Kind>> file : files.entrySet()) {
+            if (file.getValue().contains(kind)) {
+                result.add(file.getKey());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns each .pom file having the given name, ignoring case.
+     *
+     * @param name the name of the file, including extension
+     * @param root the directory against which paths should be resolved
+     * @return the matching files
+     */
+    public synchronized Collection<File> getPoms(String name, File root) {
+        return resolve(poms.get(name.toLowerCase()), root);
+    }
+
+    /**
+     * Returns each {@link Kind#JAVADOC javadoc} file whose name starts with the given prefix.
+     *
+     * @param prefix the start of the file name
+     * @param root the directory against which paths should be resolved
+     * @return the matching files
+     */
+    public synchronized Collection<File> getJavadoc(String prefix, File root) {
+        List<File> result = new ArrayList<File>();
+        for (List<String> paths : javadoc.subMap(prefix, true, prefix + Character.MAX_VALUE, true).values()) {
+            result.addAll(resolve(paths, root));
+        }
+        return result;
+    }
+
+    private static Collection<File> resolve(List<String> paths, File root) {
+        List<File> result = new ArrayList<File>();
+        if (paths != null) {
+            for (String path : paths) {
+                result.add(new File(root, path));
+            }
+        }
+        return result;
+    }
+
+    private static void removeFrom(Map<String, List<String>> index, String key, String path) {
+        List<String> paths = index.get(key);
+        if (paths != null) {
+            paths.remove(path);
+            if (paths.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    //in the root directory, or only under lib, pom, assembly and spring-boot directories
+    private static boolean isArtifact(String name, String[] directories) {
+        for (String directory : directories) {
+            if (!ARTIFACT_DIRECTORIES.contains(directory)) {
+                return false;
+            }
+        }
+        for (String suffix : ARTIFACT_SUFFIXES) {
+            if (name.endsWith(suffix)) {
+                return true;
+            }
+        }
+        return FilenameUtils.wildcardMatch(name, STARTER_PARENT, IOCase.SENSITIVE);
+    }
+
+    //directly in the doc directory, or only under lib directories beneath it
+    private static boolean isJavadoc(String[] directories) {
+        if (directories.length == 0 || !"doc".equals(directories[0])) {
+            return false;
+        }
+        for (int i = 1; i < directories.length; i++) {
+            if (!"lib".equals(directories[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,137 @@
+package com.isomorphic.maven.packaging;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import com.isomorphic.maven.util.ArchiveOptions;
+import com.isomorphic.maven.util.Journal;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The settings governing a single call to {@link Distribution#unpack(File, UnpackContext)}.  Distributions are
+ * shared singletons, so that anything specific to one run (possibly one of several running concurrently in the
+ * same JVM) is passed to them in an instance of this class rather than being set on them.
+ */
+public final class UnpackContext {
+
+    private final ArchiveOptions archiveOptions;
+    private final boolean extractJavadoc;
+    private final boolean backgroundJavadoc;
+    private final Set<String> skins;
+    private final Journal journal;
+    private final ExtractionManifest manifest;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param archiveOptions the options used to write archives (assemblies, javadoc bundles, etc.), or null for the defaults
+     * @param extractJavadoc if true, javadoc is extracted to <code>doc/api</code> and then bundled into JARs from there.
+     *                       Otherwise, the javadoc JARs are written directly from the distribution's archives and
+     *                       nothing is extracted.
+     * @param backgroundJavadoc if true, javadoc JARs that are written directly from the distribution's archives are
+     *                          written on a background thread, while assemblies are being built
+     * @param skins the lower case names of the skins to be retained in any assembly listed in
+     *              {@link Distribution#getSkinResources()}, or null to retain every skin.  Resources belonging to any
+     *              other skin are left out of the assembly when it is written, rather than being pruned from it afterwards.
+     * @param journal the journal in which each completed step should be recorded (each batch of extracted entries,
+     *                each assembly, each javadoc JAR, and each Spring Boot starter), or null to record nothing.  Steps
+     *                already recorded there are skipped, allowing an unpack interrupted by the death of an earlier
+     *                process to be resumed.
+     * @param manifest the manifest to which each file written should be added, so that the files can later be found
+     *                 without walking the directory they were written to, or null to record nothing.  Files that the
+     *                 journal allows to be skipped are added all the same, having been written by an earlier attempt.
+     */
+    public UnpackContext(ArchiveOptions archiveOptions, boolean extractJavadoc, boolean backgroundJavadoc,
+                         Collection<String> skins, Journal journal, ExtractionManifest manifest) {
+        this.archiveOptions = archiveOptions == null ? new ArchiveOptions() : archiveOptions;
+        this.extractJavadoc = extractJavadoc;
+        this.backgroundJavadoc = backgroundJavadoc;
+        this.skins = skins == null ? null : Collections.unmodifiableSet(new HashSet<String>(skins));
+        this.journal = journal;
+        this.manifest = manifest;
+    }
+
+    public ArchiveOptions getArchiveOptions() {
+        return archiveOptions;
+    }
+
+    public boolean isExtractJavadoc() {
+        return extractJavadoc;
+    }
+
+    public boolean isBackgroundJavadoc() {
+        return backgroundJavadoc;
+    }
+
+    /**
+     * Returns the lower case names of the skins to be retained, or null if every skin is to be retained.
+     *
+     * @return the skins to be retained, or null
+     */
+    public Set<String> getSkins() {
+        return skins;
+    }
+
+    public Journal getJournal() {
+        return journal;
+    }
+
+    public ExtractionManifest getManifest() {
+        return manifest;
+    }
+
+    boolean isRetained(String skin) {
+        return skins == null || skins.contains(skin.toLowerCase());
+    }
+
+    void record(File to, File file) {
+        if (manifest != null) {
+            manifest.add(to, file);
+        }
+    }
+
+    void record(String path) {
+        if (manifest != null) {
+            manifest.add(path);
+        }
+    }
+
+    void removeTree(String path) {
+        if (manifest != null) {
+            manifest.removeTree(path);
+        }
+    }
+
+    boolean isComplete(String step) {
+        return journal != null && journal.isComplete(step);
+    }
+
+    void complete(String step) throws IOException {
+        if (journal != null) {
+            journal.complete(step);
+        }
+    }
+
+}
@@ -19,22 +19,24 @@ package com.isomorphic.maven.util;
  * under the License.
  */
 
-import org.springframework.util.AntPathMatcher;
-
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
 /**
  * Provides a mechanism to see whether or not a String path is matched by one or more ant-style patterns.
+ * <p>
+ * Patterns are interpreted as by Spring's {@link org.springframework.util.AntPathMatcher}, but compiled on first use
+ * (and again after any change) so that each path need only be split into segments once, whatever the number of
+ * patterns.
  */
 public class AntPathMatcherFilter {
 
-    private static final AntPathMatcher matcher = new AntPathMatcher();
-
     private final List<String> includes = new ArrayList<String>();
     private final List<String> excludes = new ArrayList<String>();
 
+    private volatile CompiledPathFilter compiled;
+
     /**
      * Default constructor whose behavior is to include all files.
      */
@@ -65,6 +67,7 @@ public class AntPathMatcherFilter {
             for (String pattern : split) {
                 includes.add(pattern.trim());
             }
+            compiled = null;
         }
         return this;
     };
@@ -81,6 +84,7 @@ public class AntPathMatcherFilter {
             for (String pattern : split) {
                 excludes.add(pattern.trim());
             }
+            compiled = null;
         }
         return this;
     };
@@ -93,22 +97,30 @@ public class AntPathMatcherFilter {
      * @return true if path matches one or more inclusions and no exclusions
      */
     public boolean accept(String path) {
+        return compile().accept(path);
+    };
 
-        for (String exclusion : excludes) {
-            if (matcher.match(exclusion, path)) {
-                return false;
-            }
-        }
+    /**
+     * Returns false if no path under the given directory could possibly be accepted - i.e., if some exclusion matches
+     * the entire subtree, or no inclusion could match anything within it - allowing callers to skip the directory's
+     * contents altogether.  A return value of true does not guarantee that any path under the directory is actually
+     * accepted.
+     *
+     * @param directory The path of the directory, with or without a trailing separator
+     * @return false if every path under the directory would be rejected by {@link #accept(String)}
+     */
+    public boolean mayAcceptUnder(String directory) {
+        return compile().mayAcceptUnder(directory);
+    }
 
-        boolean matched = false;
-        for (String inclusion : includes) {
-            if (matcher.match(inclusion, path)) {
-                matched = true;
-                break;
-            }
+    private CompiledPathFilter compile() {
+        CompiledPathFilter result = compiled;
+        if (result == null) {
+            result = new CompiledPathFilter(includes, excludes);
+            compiled = result;
         }
-        return matched;
-    };
+        return result;
+    }
 
     /**
      * Copies this object's inclusions and exclusions to a new instance.
@@ -120,6 +132,7 @@ public class AntPathMatcherFilter {
         AntPathMatcherFilter destination = new AntPathMatcherFilter();
         Collections.copy(destination.includes, source.includes);
         Collections.copy(destination.excludes, source.excludes);
+        destination.compiled = null;
         return destination;
     }
 
@@ -0,0 +1,174 @@
+package com.isomorphic.maven.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.io.FilenameUtils;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.zip.Deflater;
+
+/**
+ * Settings governing how {@link ArchiveUtils} writes ZIP/JAR files.
+ */
+public class ArchiveOptions {
+
+    /**
+     * Extensions of files whose content is already compressed, and which are therefore stored rather than deflated
+     * by default.
+     */
+    public static final String DEFAULT_STORED_EXTENSIONS = "png, gif, jpg, jpeg, ico, woff, woff2, eot, jar, war, zip, gz, mp3, mp4, swf";
+
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int level = Deflater.DEFAULT_COMPRESSION;
+    private Set<String> storedExtensions = new HashSet<String>();
+    private long timestamp = -1;
+
+    /**
+     * Creates a new instance with default settings.
+     */
+    public ArchiveOptions() {
+        setStoredExtensions(DEFAULT_STORED_EXTENSIONS);
+    }
+
+    /**
+     * Returns true if the entry with the given name should be stored as-is, rather than deflated.  i.e., when
+     * compression is disabled altogether, or the name has one of the {@link #setStoredExtensions(String) stored
+     * extensions}.
+     *
+     * @param name the name of the entry
+     * @return true if the entry should not be compressed
+     */
+    public boolean isStored(String name) {
+        return level == Deflater.NO_COMPRESSION
+            || storedExtensions.contains(FilenameUtils.getExtension(name).toLowerCase());
+    }
+
+    /**
+     * Gives the entry the fixed modification time and normalized permissions of a {@link #isReproducible()
+     * reproducible} archive.  Does nothing otherwise.
+     *
+     * @param entry the entry to be normalized
+     * @param executable true if the entry should be executable
+     */
+    void normalize(ZipArchiveEntry entry, boolean executable) {
+        if (!isReproducible()) {
+            return;
+        }
+        //entry times are recorded in local time, so the same instant would otherwise be written differently
+        //depending on the time zone of the machine writing it
+        entry.setTime(timestamp - TimeZone.getDefault().getOffset(timestamp));
+        if (entry.isDirectory()) {
+            entry.setUnixMode(040755);
+        } else {
+            entry.setUnixMode(executable ? 0100755 : 0100644);
+        }
+    }
+
+    /**
+     * Returns the number of threads used to compress entries.  Defaults to the number of available processors.
+     *
+     * @return the number of threads used to compress entries
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Sets the number of threads used to compress entries.  Values less than 2 cause entries to be compressed on the
+     * thread writing the archive.
+     *
+     * @param threads the number of threads used to compress entries
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * Returns the deflate level, 0-9 or -1 for the {@link Deflater#DEFAULT_COMPRESSION default}.
+     *
+     * @return the deflate level
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Sets the deflate level, 0-9 or -1 for the {@link Deflater#DEFAULT_COMPRESSION default}.  A level of 0 causes
+     * every entry to be stored.
+     *
+     * @param level the deflate level
+     */
+    public void setLevel(int level) {
+        if (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Invalid compression level " + level + ".  Expected a value between -1 and 9.");
+        }
+        this.level = level;
+    }
+
+    /**
+     * Sets the extensions of files that should be stored rather than deflated, replacing any set previously.
+     *
+     * @param extensions a comma-separated list of file extensions, without the leading dot.  May be empty.
+     */
+    public void setStoredExtensions(String extensions) {
+        storedExtensions.clear();
+        if (extensions != null) {
+            for (String extension : extensions.split(",")) {
+                if (!extension.trim().isEmpty()) {
+                    storedExtensions.add(extension.trim().toLowerCase());
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns true if archives are to be written such that their bytes depend only on the content and names of their
+     * entries, i.e. if a {@link #setTimestamp(long) timestamp} has been set.
+     *
+     * @return true if archives are reproducible
+     */
+    public boolean isReproducible() {
+        return timestamp >= 0;
+    }
+
+    /**
+     * Returns the modification time given to every entry, or -1 if entries keep their own.
+     *
+     * @return the fixed modification time of every entry, in milliseconds since the epoch
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Makes archives reproducible, such that the same content always yields the same bytes: entries are written in
+     * order of name, each with the given modification time and with permissions normalized to 644 (755 for
+     * directories and executables).  Defaults to -1, in which case entries keep their own times and permissions.
+     *
+     * @param timestamp the modification time to be given to every entry, in milliseconds since the epoch, or -1
+     */
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+}
@@ -19,16 +19,36 @@ package com.isomorphic.maven.util;
  * under the License.
  */
 
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
-import org.codehaus.plexus.archiver.jar.JarArchiver;
-import org.codehaus.plexus.archiver.util.DefaultFileSet;
-import org.codehaus.plexus.archiver.zip.ZipArchiver;
 import org.codehaus.plexus.archiver.zip.ZipUnArchiver;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.stream.Stream;
 
 /**
  * A collection of static utilities useful for working with JAR/ZIP archives.
@@ -36,38 +56,223 @@ import java.util.regex.Pattern;
 public class ArchiveUtils {
 
     /**
-     * Builds a JAR file from the contents of a directory on the filesystem (recursively).
-     * Adapted from stackoverflow solution.
-     * <p>
-     * Refer to <a href="http://stackoverflow.com/questions/1281229/how-to-use-jaroutputstream-to-create-a-jar-file"></a>
+     * Builds a JAR file from the contents of a directory on the filesystem (recursively), using default
+     * {@link ArchiveOptions options}.
      *
      * @param directory the directory containing the content to be xzipped up
      * @param output    the zip file to be written to
      * @throws IOException when any I/O error occurs
      */
     public static void jar(File directory, File output) throws IOException {
-        JarArchiver ja = new JarArchiver();
-        ja.addFileSet(new DefaultFileSet(directory));
-        ja.setDestFile(output);
+        jar(directory, output, new ArchiveOptions());
+    }
 
-        ja.createArchive();
+    /**
+     * Builds a JAR file from the contents of a directory on the filesystem (recursively).  A default manifest
+     * is written first, unless the directory provides its own.
+     *
+     * @param directory the directory containing the content to be xzipped up
+     * @param output    the zip file to be written to
+     * @param options   the settings to be used to write the archive
+     * @throws IOException when any I/O error occurs
+     */
+    public static void jar(File directory, File output, ArchiveOptions options) throws IOException {
+        write(directory, Collections.<RelocatedZipEntry>emptyList(), output, options, true);
     }
 
     /**
-     * Builds a ZIP file from the contents of a directory on the filesystem (recursively).
-     * <p>
-     * Refer to <a href="http://stackoverflow.com/questions/1281229/how-to-use-jaroutputstream-to-create-a-jar-file"></a>
+     * Builds a JAR file from entries of other archives, in the manner of
+     * {@link #zip(File, Collection, File, ArchiveOptions)}.  A default manifest is written first, unless one is
+     * provided.
+     *
+     * @param directory a directory containing additional content to be jarred up, may be {@code null}
+     * @param entries   the entries to be copied, in the order they should be written
+     * @param output    the jar file to be written to
+     * @param options   the settings to be used to write the archive
+     * @throws IOException when any I/O error occurs
+     */
+    public static void jar(File directory, Collection<RelocatedZipEntry> entries, File output, ArchiveOptions options) throws IOException {
+        write(directory, entries, output, options, true);
+    }
+
+    /**
+     * Builds a ZIP file from the contents of a directory on the filesystem (recursively), using default
+     * {@link ArchiveOptions options}.
      *
      * @param directory the directory containing the content to be xzipped up
      * @param output    the zip file to be written to
      * @throws IOException when any I/O error occurs
      */
     public static void zip(File directory, File output) throws IOException {
-        ZipArchiver za = new ZipArchiver();
-        za.addFileSet(new DefaultFileSet(directory));
-        za.setDestFile(output);
+        zip(directory, Collections.<RelocatedZipEntry>emptyList(), output, new ArchiveOptions());
+    }
+
+    /**
+     * Builds a ZIP file from entries of other archives, copying each entry's compressed bytes as-is rather than
+     * inflating and deflating it again.  Files in <code>directory</code> (recursively), if it exists, are compressed
+     * and added as well, unless an entry by the same name has already been copied.
+     *
+     * @param directory a directory containing additional content to be zipped up, may be {@code null}
+     * @param entries   the entries to be copied, in the order they should be written
+     * @param output    the zip file to be written to
+     * @param options   the settings to be used to write the archive
+     * @throws IOException when any I/O error occurs
+     */
+    public static void zip(File directory, Collection<RelocatedZipEntry> entries, File output, ArchiveOptions options) throws IOException {
+        write(directory, entries, output, options, false);
+    }
 
-        za.createArchive();
+    /**
+     * Rewrites an archive without the entries rejected by the given filter.  Retained entries are copied as-is, in
+     * the manner of {@link #zip(File, Collection, File, ArchiveOptions)}, to a new archive that then replaces the
+     * original.  An archive from which nothing would be removed is left untouched.
+     *
+     * @param archive the archive to be rewritten
+     * @param filter  accepts the name of each entry that should be retained
+     * @param options the settings to be used to write the archive
+     * @return true if the archive was rewritten
+     * @throws IOException when any I/O error occurs
+     */
+    public static boolean filter(File archive, Predicate<String> filter, ArchiveOptions options) throws IOException {
+
+        File filtered = new File(archive.getParentFile(), archive.getName() + ".tmp");
+        try {
+            try (ZipFile zip = new ZipFile(archive)) {
+                List<RelocatedZipEntry> entries = new ArrayList<RelocatedZipEntry>();
+                boolean removed = false;
+                for (ZipArchiveEntry entry : Collections.list(zip.getEntries())) {
+                    if (filter.test(entry.getName())) {
+                        entries.add(new RelocatedZipEntry(zip, entry, entry.getName()));
+                    } else {
+                        removed = true;
+                    }
+                }
+                if (!removed) {
+                    return false;
+                }
+                zip(null, entries, filtered, options);
+            }
+            Files.move(filtered.toPath(), archive.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } finally {
+            //left behind only if the archive could not be written or replaced
+            FileUtils.deleteQuietly(filtered);
+        }
+    }
+
+    private static void write(File directory, Collection<RelocatedZipEntry> entries, File output, ArchiveOptions options,
+                              boolean manifest) throws IOException {
+        FileUtils.forceMkdirParent(output);
+
+        SortedMap<String, File> files = list(directory);
+        try (ZipArchiveOutputStream out = new ZipArchiveOutputStream(output)) {
+            out.setLevel(options.getLevel());
+
+            //the first of any entries sharing a name is kept.  reproducible archives are then sorted by name,
+            //as they may have been collected from several archives in no particular order
+            Map<String, RelocatedZipEntry> copies = new LinkedHashMap<String, RelocatedZipEntry>();
+            for (RelocatedZipEntry entry : entries) {
+                if (!copies.containsKey(entry.getName())) {
+                    copies.put(entry.getName(), entry);
+                }
+            }
+            if (options.isReproducible()) {
+                copies = new TreeMap<String, RelocatedZipEntry>(copies);
+            }
+
+            //JarInputStream only finds a manifest that is the first entry, or the second after its directory, so the
+            //manifest is written before anything else however the other entries are ordered
+            Set<String> names = new HashSet<String>();
+            RelocatedZipEntry copiedManifest = copies.get(JarFile.MANIFEST_NAME);
+            File manifestFile = files.get(JarFile.MANIFEST_NAME);
+            if (copiedManifest != null || manifestFile != null || manifest) {
+                names.add(JarFile.MANIFEST_NAME);
+                writeParents(out, JarFile.MANIFEST_NAME, copies, files, names, options);
+                if (copiedManifest != null) {
+                    copiedManifest.copyTo(out, options);
+                } else if (manifestFile != null) {
+                    SortedMap<String, File> manifestOnly = new TreeMap<String, File>();
+                    manifestOnly.put(JarFile.MANIFEST_NAME, manifestFile);
+                    ParallelDeflater.write(out, manifestOnly, options);
+                } else {
+                    Manifest mf = new Manifest();
+                    mf.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+                    mf.getMainAttributes().putValue("Created-By", "isc-maven-plugin");
+
+                    ZipArchiveEntry entry = new ZipArchiveEntry(JarFile.MANIFEST_NAME);
+                    options.normalize(entry, false);
+                    out.putArchiveEntry(entry);
+                    mf.write(out);
+                    out.closeArchiveEntry();
+                }
+            }
+
+            for (RelocatedZipEntry entry : copies.values()) {
+                if (names.add(entry.getName())) {
+                    writeParents(out, entry.getName(), copies, files, names, options);
+                    entry.copyTo(out, options);
+                }
+            }
+
+            files.keySet().removeAll(names);
+            ParallelDeflater.write(out, files, options);
+        }
+    }
+
+    /**
+     * Writes an entry for each directory containing the named entry that has not been written already, outermost
+     * first.  Archives read from are not guaranteed to have directory entries of their own, but some consumers of
+     * the archives written expect them (as written for the files of any <code>directory</code>).
+     * <p>
+     * A directory's own entry is used if one is to be copied, or a directory listed on the filesystem, otherwise an
+     * empty directory entry is synthesized.
+     */
+    private static void writeParents(ZipArchiveOutputStream out, String name, Map<String, RelocatedZipEntry> copies,
+                                     SortedMap<String, File> files, Set<String> names, ArchiveOptions options) throws IOException {
+        for (int index = name.indexOf('/'); index != -1 && index < name.length() - 1; index = name.indexOf('/', index + 1)) {
+            String parent = name.substring(0, index + 1);
+            if (!names.add(parent)) {
+                continue;
+            }
+            RelocatedZipEntry copy = copies.get(parent);
+            if (copy != null) {
+                copy.copyTo(out, options);
+                continue;
+            }
+            File directory = files.get(parent);
+            ZipArchiveEntry entry = new ZipArchiveEntry(parent);
+            entry.setTime(directory != null ? directory.lastModified() : System.currentTimeMillis());
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(0);
+            entry.setCrc(0);
+            options.normalize(entry, false);
+            out.putArchiveEntry(entry);
+            out.closeArchiveEntry();
+        }
+    }
+
+    /**
+     * Lists the contents of a directory (recursively), keyed and sorted on the path of each file or subdirectory
+     * relative to the directory itself.  Subdirectory keys have a trailing slash, in the manner of ZIP entries.
+     *
+     * @param directory the directory to be listed, may be {@code null}
+     * @return the contents of the directory, or an empty map if it does not exist
+     * @throws IOException when any I/O error occurs
+     */
+    private static SortedMap<String, File> list(File directory) throws IOException {
+        SortedMap<String, File> result = new TreeMap<String, File>();
+        if (directory == null || !directory.isDirectory()) {
+            return result;
+        }
+        Path root = directory.toPath();
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.filter(path -> !path.equals(root)).forEach(path -> {
+                String name = FilenameUtils.separatorsToUnix(root.relativize(path).toString());
+                File file = path.toFile();
+                result.put(file.isDirectory() ? name + "/" : name, file);
+            });
+        }
+        return result;
     }
 
     /**
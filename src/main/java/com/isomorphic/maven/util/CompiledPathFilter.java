@@ -0,0 +1,379 @@
+package com.isomorphic.maven.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.springframework.util.AntPathMatcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * The compiled form of an {@link AntPathMatcherFilter}'s inclusions and exclusions.  Each pattern is split into
+ * segments once, each segment into a literal, a wildcard or a precompiled regular expression, and the literal text
+ * that any matching path must contain is noted up front.  A path is then split into segments only once, however many
+ * patterns it is matched against, and most patterns are ruled out by a substring check before any segments are
+ * compared at all.
+ * <p>
+ * Matching follows the algorithm of Spring's {@link AntPathMatcher} (with its default settings) step for step, such
+ * that the result for any pattern and path is the same.
+ */
+final class CompiledPathFilter {
+
+    private static final AntPathMatcher MATCHER = new AntPathMatcher();
+
+    private final CompiledPattern[] includes;
+    private final CompiledPattern[] excludes;
+
+    CompiledPathFilter(List<String> includes, List<String> excludes) {
+        this.includes = compile(includes);
+        this.excludes = compile(excludes);
+    }
+
+    private static CompiledPattern[] compile(List<String> patterns) {
+        CompiledPattern[] result = new CompiledPattern[patterns.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = new CompiledPattern(patterns.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * @see AntPathMatcherFilter#accept(String)
+     */
+    boolean accept(String path) {
+        String[] tokens = tokenize(path);
+        for (CompiledPattern exclusion : excludes) {
+            if (exclusion.match(path, tokens, true)) {
+                return false;
+            }
+        }
+        for (CompiledPattern inclusion : includes) {
+            if (inclusion.match(path, tokens, true)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @see AntPathMatcherFilter#mayAcceptUnder(String)
+     */
+    boolean mayAcceptUnder(String directory) {
+
+        String path = directory.endsWith("/") ? directory.substring(0, directory.length() - 1) : directory;
+
+        //an exclusion of the form 'x/**' rejects everything under any directory matched by 'x'
+        for (CompiledPattern exclusion : excludes) {
+            if (exclusion.parent != null) {
+                for (int i = path.indexOf('/'); i != -1; i = path.indexOf('/', i + 1)) {
+                    String ancestor = path.substring(0, i);
+                    if (exclusion.parent.match(ancestor, tokenize(ancestor), true)) {
+                        return false;
+                    }
+                }
+                if (exclusion.parent.match(path, tokenize(path), true)) {
+                    return false;
+                }
+            }
+        }
+
+        String prefix = path + "/";
+        String[] tokens = tokenize(prefix);
+        for (CompiledPattern inclusion : includes) {
+            if (inclusion.match(prefix, tokens, false)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //splits on separators, ignoring empty segments, as AntPathMatcher does
+    private static String[] tokenize(String path) {
+        List<String> result = new ArrayList<String>();
+        int start = 0;
+        for (int i = 0; i <= path.length(); i++) {
+            if (i == path.length() || path.charAt(i) == '/') {
+                if (i > start) {
+                    result.add(path.substring(start, i));
+                }
+                start = i + 1;
+            }
+        }
+        return result.toArray(new String[0]);
+    }
+
+    private static boolean isWildcard(char c) {
+        return c == '*' || c == '?' || c == '{';
+    }
+
+    /**
+     * A single Ant-style pattern.
+     */
+    private static final class CompiledPattern {
+
+        private final String pattern;
+        private final String[] dirs;
+        private final Segment[] segments;
+        private final boolean absolute;
+        private final boolean directory;
+        //text that must appear somewhere in any matching path
+        private final String[] literals;
+        //for patterns of the form 'x/**', the pattern 'x'
+        private final CompiledPattern parent;
+
+        private CompiledPattern(String pattern) {
+            this.pattern = pattern;
+            this.dirs = tokenize(pattern);
+            this.segments = new Segment[dirs.length];
+            this.absolute = pattern.startsWith("/");
+            this.directory = pattern.endsWith("/");
+
+            List<String> literals = new ArrayList<String>();
+            for (int i = 0; i < dirs.length; i++) {
+                segments[i] = new Segment(dirs[i]);
+                if (dirs[i].indexOf('{') == -1) {
+                    for (String literal : dirs[i].split("[*?]")) {
+                        if (!literal.isEmpty()) {
+                            literals.add(literal);
+                        }
+                    }
+                }
+            }
+            this.literals = literals.toArray(new String[0]);
+            this.parent = pattern.endsWith("/**") ? new CompiledPattern(pattern.substring(0, pattern.length() - 3)) : null;
+        }
+
+        /**
+         * Equivalent to {@link AntPathMatcher#match(String, String)} if <code>fullMatch</code>, otherwise to
+         * {@link AntPathMatcher#matchStart(String, String)}.
+         */
+        private boolean match(String path, String[] pathDirs, boolean fullMatch) {
+
+            if (path.startsWith("/") != absolute) {
+                return false;
+            }
+            if (fullMatch) {
+                for (String literal : literals) {
+                    if (!path.contains(literal)) {
+                        return false;
+                    }
+                }
+                if (!isPotentialMatch(path)) {
+                    return false;
+                }
+            }
+
+            int pattIdxStart = 0;
+            int pattIdxEnd = dirs.length - 1;
+            int pathIdxStart = 0;
+            int pathIdxEnd = pathDirs.length - 1;
+
+            //match all elements up to the first **
+            while (pattIdxStart <= pattIdxEnd && pathIdxStart <= pathIdxEnd) {
+                if (segments[pattIdxStart].any) {
+                    break;
+                }
+                if (!segments[pattIdxStart].matches(pathDirs[pathIdxStart])) {
+                    return false;
+                }
+                pattIdxStart++;
+                pathIdxStart++;
+            }
+
+            if (pathIdxStart > pathIdxEnd) {
+                //path is exhausted, only match if rest of pattern is * or **'s
+                if (pattIdxStart > pattIdxEnd) {
+                    return directory == path.endsWith("/");
+                }
+                if (!fullMatch) {
+                    return true;
+                }
+                if (pattIdxStart == pattIdxEnd && dirs[pattIdxStart].equals("*") && path.endsWith("/")) {
+                    return true;
+                }
+                return onlyAny(pattIdxStart, pattIdxEnd);
+            } else if (pattIdxStart > pattIdxEnd) {
+                //path not exhausted, but pattern is
+                return false;
+            } else if (!fullMatch && segments[pattIdxStart].any) {
+                //path start definitely matches due to ** in pattern
+                return true;
+            }
+
+            //up to last **
+            while (pattIdxStart <= pattIdxEnd && pathIdxStart <= pathIdxEnd) {
+                if (segments[pattIdxEnd].any) {
+                    break;
+                }
+                if (!segments[pattIdxEnd].matches(pathDirs[pathIdxEnd])) {
+                    return false;
+                }
+                pattIdxEnd--;
+                pathIdxEnd--;
+            }
+            if (pathIdxStart > pathIdxEnd) {
+                return onlyAny(pattIdxStart, pattIdxEnd);
+            }
+
+            while (pattIdxStart != pattIdxEnd && pathIdxStart <= pathIdxEnd) {
+                int patIdxTmp = -1;
+                for (int i = pattIdxStart + 1; i <= pattIdxEnd; i++) {
+                    if (segments[i].any) {
+                        patIdxTmp = i;
+                        break;
+                    }
+                }
+                if (patIdxTmp == pattIdxStart + 1) {
+                    //**/** situation, so skip one
+                    pattIdxStart++;
+                    continue;
+                }
+                //find the segments between the two **s in the remaining path
+                int patLength = patIdxTmp - pattIdxStart - 1;
+                int strLength = pathIdxEnd - pathIdxStart + 1;
+                int foundIdx = -1;
+
+                strLoop:
+                for (int i = 0; i <= strLength - patLength; i++) {
+                    for (int j = 0; j < patLength; j++) {
+                        if (!segments[pattIdxStart + j + 1].matches(pathDirs[pathIdxStart + i + j])) {
+                            continue strLoop;
+                        }
+                    }
+                    foundIdx = pathIdxStart + i;
+                    break;
+                }
+                if (foundIdx == -1) {
+                    return false;
+                }
+                pattIdxStart = patIdxTmp;
+                pathIdxStart = foundIdx + patLength;
+            }
+
+            return onlyAny(pattIdxStart, pattIdxEnd);
+        }
+
+        private boolean onlyAny(int from, int to) {
+            for (int i = from; i <= to; i++) {
+                if (!segments[i].any) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        //AntPathMatcher's quick rejection of paths whose leading literal characters differ from the pattern's
+        private boolean isPotentialMatch(String path) {
+            int pos = 0;
+            for (String dir : dirs) {
+                while (path.startsWith("/", pos)) {
+                    pos++;
+                }
+                int skipped = skipSegment(path, pos, dir);
+                if (skipped < dir.length()) {
+                    return skipped > 0 || (dir.length() > 0 && isWildcard(dir.charAt(0)));
+                }
+                pos += skipped;
+            }
+            return true;
+        }
+
+        private static int skipSegment(String path, int pos, String prefix) {
+            int skipped = 0;
+            for (int i = 0; i < prefix.length(); i++) {
+                char c = prefix.charAt(i);
+                if (isWildcard(c)) {
+                    return skipped;
+                }
+                int currPos = pos + skipped;
+                if (currPos >= path.length()) {
+                    return 0;
+                }
+                if (c == path.charAt(currPos)) {
+                    skipped++;
+                }
+            }
+            return skipped;
+        }
+
+        @Override
+        public String toString() {
+            return pattern;
+        }
+    }
+
+    /**
+     * A single segment of a pattern, matched against a single segment of a path.
+     */
+    private static final class Segment {
+
+        private final String text;
+        //true for **, which matches any number of path segments
+        private final boolean any;
+        //true for *, which matches any single path segment
+        private final boolean wildcard;
+        private final boolean literal;
+        private final Pattern regex;
+
+        private Segment(String text) {
+            this.text = text;
+            this.any = "**".equals(text);
+            this.wildcard = "*".equals(text);
+            this.literal = text.indexOf('*') == -1 && text.indexOf('?') == -1 && text.indexOf('{') == -1;
+
+            //patterns with template variables are rare enough to be left to AntPathMatcher itself
+            if (!literal && !wildcard && text.indexOf('{') == -1) {
+                StringBuilder builder = new StringBuilder();
+                int start = 0;
+                for (int i = 0; i < text.length(); i++) {
+                    char c = text.charAt(i);
+                    if (c == '*' || c == '?') {
+                        if (i > start) {
+                            builder.append(Pattern.quote(text.substring(start, i)));
+                        }
+                        builder.append(c == '*' ? ".*" : ".");
+                        start = i + 1;
+                    }
+                }
+                if (start < text.length()) {
+                    builder.append(Pattern.quote(text.substring(start)));
+                }
+                this.regex = Pattern.compile(builder.toString(), Pattern.DOTALL);
+            } else {
+                this.regex = null;
+            }
+        }
+
+        private boolean matches(String segment) {
+            if (literal) {
+                return text.equals(segment);
+            }
+            if (wildcard) {
+                return true;
+            }
+            if (regex != null) {
+                return regex.matcher(segment).matches();
+            }
+            return MATCHER.match(text, segment);
+        }
+    }
+
+}
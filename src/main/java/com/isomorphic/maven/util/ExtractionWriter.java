@@ -0,0 +1,106 @@
+package com.isomorphic.maven.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Writes extracted archive entries to the filesystem.  Intended for the many thousands of small files making up a
+ * typical distribution, each of which would otherwise cost a fresh buffer and a check on the existence of each of its
+ * parent directories:
+ * <ul>
+ * <li>Directories already created by this instance are remembered, and not created again</li>
+ * <li>Buffers are reused, one per thread</li>
+ * <li>Entries of known (and modest) size are read in full and written with a single positional write</li>
+ * </ul>
+ * Directories are assumed not to be deleted for the lifetime of the instance.
+ */
+public class ExtractionWriter {
+
+    //entries larger than this are streamed through a buffer of this size, rather than read in full
+    private static final int MAX_BUFFERED_SIZE = 1024 * 1024;
+
+    private static final ThreadLocal<byte[]> BUFFER = ThreadLocal.withInitial(() -> new byte[64 * 1024]);
+
+    private final Set<File> directories = Collections.newSetFromMap(new ConcurrentHashMap<File, Boolean>());
+
+    /**
+     * Writes the content of the given stream to the target file, replacing any existing file.  The stream is not
+     * closed.
+     *
+     * @param in the content to be written
+     * @param size the number of bytes expected of the stream (e.g., {@link java.util.zip.ZipEntry#getSize()}), or
+     *             -1 if unknown.  An inaccurate size is tolerated, at some cost.
+     * @param target the file to be written
+     * @throws IOException when any I/O error occurs
+     */
+    public void write(InputStream in, long size, File target) throws IOException {
+
+        File parent = target.getParentFile();
+        if (parent != null && !directories.contains(parent)) {
+            Files.createDirectories(parent.toPath());
+            directories.add(parent);
+        }
+
+        byte[] buffer = BUFFER.get();
+        if (size >= 0 && size <= MAX_BUFFERED_SIZE && size >= buffer.length) {
+            //one more than the expected size, so that a stream longer than expected is detected
+            buffer = new byte[(int) size + 1];
+            BUFFER.set(buffer);
+        }
+
+        try (FileChannel channel = FileChannel.open(target.toPath(),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            long position = 0;
+            int read;
+            do {
+                read = fill(in, buffer);
+                ByteBuffer content = ByteBuffer.wrap(buffer, 0, read);
+                while (content.hasRemaining()) {
+                    position += channel.write(content, position);
+                }
+            } while (read == buffer.length);
+        }
+    }
+
+    //reads from the stream until the buffer is full or the stream is exhausted
+    private static int fill(InputStream in, byte[] buffer) throws IOException {
+        int total = 0;
+        while (total < buffer.length) {
+            int read = in.read(buffer, total, buffer.length - total);
+            if (read == -1) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+}
@@ -0,0 +1,134 @@
+package com.isomorphic.maven.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.commons.io.FileUtils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * An append-only record of the steps completed by some long-running operation, allowing the operation to resume from
+ * where it left off if the process running it is killed.  Each step is written (and flushed) to the file as a single
+ * line once complete.  A partially written line is ignored.
+ * <p>
+ * The first line of the file records a fingerprint of the operation's inputs, so that steps recorded for some other
+ * set of inputs are never mistaken for steps already completed.
+ * <p>
+ * Note that the journal is intended to survive the death of the process, not of the machine.  Files written by each
+ * step are not synced to disk before the step is recorded.
+ */
+public class Journal implements Closeable {
+
+    private final Set<String> completed = new HashSet<String>();
+    private final Writer writer;
+    private final boolean resumed;
+
+    /**
+     * Opens the journal at the given location, reading any steps already recorded there for the same fingerprint.
+     * Any other content is discarded.
+     *
+     * @param file the journal file, which need not exist
+     * @param fingerprint some identifier of the operation's inputs, not containing line breaks
+     * @throws IOException if the file cannot be read or written
+     */
+    public Journal(File file, String fingerprint) throws IOException {
+
+        byte[] content = file.exists() ? FileUtils.readFileToByteArray(file) : new byte[0];
+        List<String> lines = Arrays.asList(new String(content, StandardCharsets.UTF_8).split("\n", -1));
+        if (lines.size() > 1 && fingerprint.equals(lines.get(0))) {
+            //the last element is either empty or a line that was never terminated
+            completed.addAll(lines.subList(1, lines.size() - 1));
+        }
+        resumed = !completed.isEmpty();
+
+        //a line that was never terminated is discarded, so that the next step recorded starts a line of its own
+        int end = resumed ? lastIndexOf(content, (byte) '\n') + 1 : content.length;
+        if (end < content.length) {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+                channel.truncate(end);
+            }
+        }
+
+        writer = new OutputStreamWriter(new FileOutputStream(file, resumed), StandardCharsets.UTF_8);
+        if (!resumed) {
+            writer.write(fingerprint + "\n");
+            writer.flush();
+        }
+    }
+
+    /**
+     * Returns true if any steps were recorded by an earlier process.
+     *
+     * @return true if the operation is being resumed
+     */
+    public boolean isResumed() {
+        return resumed;
+    }
+
+    /**
+     * Returns true if the given step has already been completed.
+     *
+     * @param step the name of the step, not containing line breaks
+     * @return true if the step was previously {@link #complete(String) recorded}
+     */
+    public synchronized boolean isComplete(String step) {
+        return completed.contains(step);
+    }
+
+    /**
+     * Records the completion of the given step.
+     *
+     * @param step the name of the step, not containing line breaks
+     * @throws IOException if the step cannot be written
+     */
+    public synchronized void complete(String step) throws IOException {
+        if (completed.add(step)) {
+            writer.write(step + "\n");
+            writer.flush();
+        }
+    }
+
+    private static int lastIndexOf(byte[] content, byte value) {
+        for (int i = content.length - 1; i >= 0; i--) {
+            if (content[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+
+}
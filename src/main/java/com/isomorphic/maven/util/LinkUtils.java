@@ -0,0 +1,59 @@
+package com.isomorphic.maven.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * A collection of static utilities useful for sharing file content between locations without copying it.
+ */
+public class LinkUtils {
+
+    /**
+     * Makes the content of <code>source</code> available at <code>target</code>, replacing anything already there.
+     * A hard link is created if the filesystem allows it (i.e., both files are on the same volume, and the
+     * filesystem supports links), otherwise the file is copied.
+     * <p>
+     * Note that a linked target shares its content with the source, so neither should subsequently be modified in
+     * place.
+     *
+     * @param source the existing file
+     * @param target the location at which the file's content should be made available
+     * @return true if a link was created, false if the file was copied
+     * @throws IOException when the file can neither be linked nor copied
+     */
+    public static boolean linkOrCopy(File source, File target) throws IOException {
+        FileUtils.forceMkdirParent(target);
+        Files.deleteIfExists(target.toPath());
+        try {
+            Files.createLink(target.toPath(), source.toPath());
+            return true;
+        } catch (UnsupportedOperationException | IOException e) {
+            Files.copy(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            return false;
+        }
+    }
+
+}
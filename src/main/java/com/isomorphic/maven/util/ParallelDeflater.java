@@ -0,0 +1,220 @@
+package com.isomorphic.maven.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.ZipEntry;
+
+/**
+ * Compresses files on a pool of worker threads (scatter) and writes the results, already compressed, to a single
+ * archive in the order given (gather).  Only a bounded number of entries, of bounded total size, is held in memory at
+ * any one time, and files too large to be buffered are compressed by the writing thread instead.
+ */
+final class ParallelDeflater {
+
+    //files larger than this are streamed through the archive's own deflater rather than buffered
+    private static final long MAX_BUFFERED_SIZE = 8 * 1024 * 1024;
+
+    //the number of entries compressed ahead of the writer, per thread
+    private static final int WINDOW_PER_THREAD = 4;
+
+    //the total size of the files compressed ahead of the writer, however many threads there are.  each is held in
+    //memory along with its compressed form until written, so this bounds the heap used at about twice as much
+    private static final long MAX_WINDOW_SIZE = 32 * 1024 * 1024;
+
+    private ParallelDeflater() {
+    }
+
+    /**
+     * Writes each of the given files to the archive, under the name it is mapped to.  Directories are written as
+     * directory entries.
+     *
+     * @param out the stream to which entries are written
+     * @param files the files to be written, keyed on entry name
+     * @param options the settings to be used to compress entries
+     * @throws IOException when any I/O error occurs
+     */
+    static void write(ZipArchiveOutputStream out, SortedMap<String, File> files, ArchiveOptions options) throws IOException {
+
+        int threads = options.getThreads();
+        ExecutorService pool = threads > 1 ? Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "isc-deflater");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+
+        try {
+            Deque<Future<Deflated>> window = new ArrayDeque<Future<Deflated>>();
+            Deque<Long> sizes = new ArrayDeque<Long>();
+            int windowSize = Math.max(1, threads) * WINDOW_PER_THREAD;
+            long buffered = 0;
+
+            for (Map.Entry<String, File> file : files.entrySet()) {
+                long size = isBuffered(file.getValue()) ? file.getValue().length() : 0;
+                while (!window.isEmpty() && (window.size() >= windowSize || buffered + size > MAX_WINDOW_SIZE)) {
+                    get(window.poll()).writeTo(out);
+                    buffered -= sizes.poll();
+                }
+                window.add(submit(pool, () -> deflate(file.getValue(), file.getKey(), options)));
+                sizes.add(size);
+                buffered += size;
+            }
+            while (!window.isEmpty()) {
+                get(window.poll()).writeTo(out);
+            }
+        } finally {
+            if (pool != null) {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    private static Future<Deflated> submit(ExecutorService pool, Callable<Deflated> task) {
+        if (pool != null) {
+            return pool.submit(task);
+        }
+        FutureTask<Deflated> result = new FutureTask<Deflated>(task);
+        result.run();
+        return result;
+    }
+
+    private static Deflated get(Future<Deflated> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while compressing archive entries");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Unable to compress archive entry", e.getCause());
+        }
+    }
+
+    private static boolean isBuffered(File file) {
+        return !file.isDirectory() && file.length() <= MAX_BUFFERED_SIZE;
+    }
+
+    private static Deflated deflate(File file, String name, ArchiveOptions options) throws IOException {
+
+        if (!isBuffered(file)) {
+            return new Deflated(file, name, null, null, options);
+        }
+
+        byte[] data = Files.readAllBytes(file.toPath());
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length);
+
+        byte[] compressed = data;
+        if (!options.isStored(name)) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(64, data.length / 2));
+            Deflater deflater = new Deflater(options.getLevel(), true);
+            try (DeflaterOutputStream deflaterStream = new DeflaterOutputStream(buffer, deflater, 8192)) {
+                deflaterStream.write(data);
+            } finally {
+                deflater.end();
+            }
+            compressed = buffer.toByteArray();
+        }
+
+        ZipArchiveEntry entry = new ZipArchiveEntry(name);
+        entry.setTime(file.lastModified());
+        options.normalize(entry, file.canExecute());
+        entry.setSize(data.length);
+        entry.setCrc(crc.getValue());
+
+        //stored by choice, or because deflating didn't make it any smaller
+        if (compressed == data || compressed.length >= data.length) {
+            entry.setMethod(ZipEntry.STORED);
+            compressed = data;
+        } else {
+            entry.setMethod(ZipEntry.DEFLATED);
+        }
+        entry.setCompressedSize(compressed.length);
+
+        return new Deflated(file, name, entry, compressed, options);
+    }
+
+    /**
+     * The result of compressing a single file - either its entry and compressed bytes, or nothing at all if the
+     * file is to be compressed as it is written.
+     */
+    private static final class Deflated {
+
+        private final File file;
+        private final String name;
+        private final ZipArchiveEntry entry;
+        private final byte[] data;
+        private final ArchiveOptions options;
+
+        private Deflated(File file, String name, ZipArchiveEntry entry, byte[] data, ArchiveOptions options) {
+            this.file = file;
+            this.name = name;
+            this.entry = entry;
+            this.data = data;
+            this.options = options;
+        }
+
+        private void writeTo(ZipArchiveOutputStream out) throws IOException {
+            if (data != null) {
+                out.addRawArchiveEntry(entry, new ByteArrayInputStream(data));
+                return;
+            }
+            ZipArchiveEntry directoryOrLargeFile = new ZipArchiveEntry(name);
+            directoryOrLargeFile.setTime(file.lastModified());
+            if (file.isDirectory()) {
+                directoryOrLargeFile.setMethod(ZipEntry.STORED);
+                directoryOrLargeFile.setSize(0);
+                directoryOrLargeFile.setCrc(0);
+            } else if (options.isStored(name)) {
+                directoryOrLargeFile.setMethod(ZipEntry.STORED);
+            }
+            options.normalize(directoryOrLargeFile, file.isFile() && file.canExecute());
+            out.putArchiveEntry(directoryOrLargeFile);
+            if (file.isFile()) {
+                Files.copy(file.toPath(), out);
+            }
+            out.closeArchiveEntry();
+        }
+    }
+
+}
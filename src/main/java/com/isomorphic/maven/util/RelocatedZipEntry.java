@@ -0,0 +1,81 @@
+package com.isomorphic.maven.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A reference to an entry in some existing ZIP/JAR file, along with the name it should be given when
+ * written to another archive.  Allows archives to be assembled from the contents of other archives by
+ * copying each entry's compressed bytes as-is, without having to inflate them to the filesystem and
+ * deflate them again.
+ */
+public final class RelocatedZipEntry {
+
+    private final ZipFile source;
+    private final ZipArchiveEntry entry;
+    private final String name;
+
+    /**
+     * @param source the (open) archive containing the entry
+     * @param entry the entry to be copied, as read from <code>source</code>
+     * @param name the path the entry should take in the target archive
+     */
+    public RelocatedZipEntry(ZipFile source, ZipArchiveEntry entry, String name) {
+        this.source = source;
+        this.entry = entry;
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Writes the entry's compressed bytes, under its new name, to the given stream.  Its time and permissions are
+     * normalized if the given options are {@link ArchiveOptions#isReproducible() reproducible}.
+     *
+     * @param out the stream to which the entry should be written
+     * @param options the settings used to write the archive
+     * @throws IOException when any I/O error occurs
+     */
+    public void copyTo(ZipArchiveOutputStream out, ArchiveOptions options) throws IOException {
+        ZipArchiveEntry target = new ZipArchiveEntry(name);
+        target.setMethod(entry.getMethod());
+        target.setTime(entry.getTime());
+        target.setCrc(entry.getCrc());
+        target.setSize(entry.getSize());
+        target.setCompressedSize(entry.getCompressedSize());
+        boolean unix = entry.getPlatform() == ZipArchiveEntry.PLATFORM_UNIX;
+        if (unix) {
+            target.setUnixMode(entry.getUnixMode());
+        }
+        options.normalize(target, unix && (entry.getUnixMode() & 0111) != 0);
+        try (InputStream raw = source.getRawInputStream(entry)) {
+            out.addRawArchiveEntry(target, raw);
+        }
+    }
+
+}
@@ -0,0 +1,194 @@
+package com.isomorphic.maven.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import com.google.common.io.BaseEncoding;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.auth.AuthScope;
+import org.apache.http.auth.UsernamePasswordCredentials;
+import org.apache.http.client.CredentialsProvider;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.BasicCredentialsProvider;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.util.EntityUtils;
+import org.apache.maven.settings.Proxy;
+import org.eclipse.aether.artifact.Artifact;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.regex.Pattern;
+
+/**
+ * Compares artifacts with those already deployed to a remote repository (of the default layout), by way of the
+ * checksum files deployed alongside each.  The SHA-1 checksum is used where available, otherwise SHA-256.
+ * <p>
+ * Any failure to fetch a remote checksum is taken to mean that the artifact differs, so that it is deployed all the
+ * same.  SNAPSHOT versions, whose remote files are named by timestamp, always differ.
+ */
+public class RemoteChecksums implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RemoteChecksums.class);
+
+    private static final String[][] ALGORITHMS = {{"sha1", "SHA-1"}, {"sha256", "SHA-256"}};
+
+    private final String repositoryUrl;
+    private final CloseableHttpClient httpClient;
+
+    /**
+     * @param repositoryUrl the URL of the remote repository
+     * @param credentials the credentials to be used to read from the repository, or null
+     * @param proxy the proxy through which the repository should be reached, or null
+     * @param connections the number of checksums that may be fetched at once
+     */
+    public RemoteChecksums(String repositoryUrl, UsernamePasswordCredentials credentials, Proxy proxy, int connections) {
+        this.repositoryUrl = repositoryUrl.endsWith("/") ? repositoryUrl : repositoryUrl + "/";
+
+        URI uri = URI.create(this.repositoryUrl);
+        String host = uri.getHost();
+
+        //scoped to the repository itself, so that they're never sent to any other host it redirects to
+        CredentialsProvider provider = new BasicCredentialsProvider();
+        if (credentials != null && host != null) {
+            provider.setCredentials(new AuthScope(host, getPort(uri)), credentials);
+        }
+        HttpClientBuilder builder = HttpClientBuilder.create()
+            .setMaxConnPerRoute(Math.max(1, connections))
+            .setMaxConnTotal(Math.max(1, connections));
+
+        if (proxy != null && host != null && !isNonProxyHost(host, proxy.getNonProxyHosts())) {
+            builder.setProxy(new HttpHost(proxy.getHost(), proxy.getPort()));
+            if (proxy.getUsername() != null) {
+                provider.setCredentials(new AuthScope(proxy.getHost(), proxy.getPort()),
+                    new UsernamePasswordCredentials(proxy.getUsername(), proxy.getPassword()));
+            }
+        }
+        this.httpClient = builder.setDefaultCredentialsProvider(provider).build();
+    }
+
+    /**
+     * Returns true if the given artifact's file is identical to the one already deployed to the repository.
+     *
+     * @param artifact the artifact, with its file
+     * @return true if the remote checksum matches the checksum of the local file
+     * @throws IOException if the local file cannot be read
+     */
+    public boolean matches(Artifact artifact) throws IOException {
+
+        if (artifact.isSnapshot() || artifact.getFile() == null) {
+            return false;
+        }
+        for (String[] algorithm : ALGORITHMS) {
+            String remote = fetch(getPath(artifact) + "." + algorithm[0]);
+            if (remote != null) {
+                return remote.equalsIgnoreCase(digest(artifact.getFile(), algorithm[1]));
+            }
+        }
+        return false;
+    }
+
+    //the port given by the URL, or else the default for its scheme
+    private static int getPort(URI uri) {
+        if (uri.getPort() != -1) {
+            return uri.getPort();
+        }
+        return "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+    }
+
+    //the path of the artifact within a repository of the default layout
+    private static String getPath(Artifact artifact) {
+        StringBuilder result = new StringBuilder();
+        result.append(artifact.getGroupId().replace('.', '/')).append('/')
+            .append(artifact.getArtifactId()).append('/')
+            .append(artifact.getBaseVersion()).append('/')
+            .append(artifact.getArtifactId()).append('-').append(artifact.getVersion());
+        if (!artifact.getClassifier().isEmpty()) {
+            result.append('-').append(artifact.getClassifier());
+        }
+        return result.append('.').append(artifact.getExtension()).toString();
+    }
+
+    //the checksum held by the file at the given path, or null if there is no such file or it cannot be read
+    private String fetch(String path) {
+        HttpGet get = new HttpGet(repositoryUrl + path);
+        try {
+            HttpResponse response = httpClient.execute(get);
+            try {
+                if (response.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
+                    return null;
+                }
+                //some tools write the file name after the checksum
+                String[] content = EntityUtils.toString(response.getEntity()).trim().split("\\s+");
+                return content[0].isEmpty() ? null : content[0];
+            } finally {
+                EntityUtils.consumeQuietly(response.getEntity());
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Unable to fetch checksum at '{}'", get.getURI(), e);
+            return null;
+        }
+    }
+
+    private static String digest(File file, String algorithm) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return BaseEncoding.base16().lowerCase().encode(digest.digest());
+    }
+
+    //nonProxyHosts is a list of host names separated by '|', each of which may contain '*' wildcards
+    private static boolean isNonProxyHost(String host, String nonProxyHosts) {
+        if (nonProxyHosts == null) {
+            return false;
+        }
+        for (String nonProxyHost : nonProxyHosts.split("[|,;]")) {
+            String pattern = Pattern.quote(nonProxyHost.trim()).replace("*", "\\E.*\\Q");
+            if (!nonProxyHost.trim().isEmpty() && host.matches("(?i)" + pattern)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        httpClient.close();
+    }
+
+}
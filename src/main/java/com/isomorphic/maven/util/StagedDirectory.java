@@ -0,0 +1,328 @@
+package com.isomorphic.maven.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import com.google.common.hash.Hashing;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A directory whose contents are written somewhere else first, and only moved into place once complete.  Readers of
+ * the target directory therefore see either its previous contents or its new contents in full, never a partially
+ * written tree - even if the process writing it is interrupted.
+ * <p>
+ * Contents are staged in a sibling of the target directory by default, so that they can be published with a simple
+ * rename.  They may instead be staged on some other (faster) volume, in which case they are moved to a sibling
+ * before being published.  Superseded contents are deleted on a background thread.
+ * <p>
+ * Contents staged by a process that did not complete are not discarded, but reused by the next instance for the same
+ * target, allowing the work to be {@link #openJournal(String) resumed}.  Staging directories are named for the full
+ * path of their target, so that targets of the same name never share them, and each is locked (by way of its journal)
+ * for as long as an instance is using it, so that two processes never share one either.
+ */
+public class StagedDirectory implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StagedDirectory.class);
+
+    //staging directories left untouched for this long are assumed to belong to an interrupted process
+    private static final long STALE_AFTER = TimeUnit.DAYS.toMillis(1);
+
+    private static final String JOURNAL_SUFFIX = ".journal";
+
+    private final File target;
+    private final File directory;
+    private final File journal;
+    private final FileChannel lockChannel;
+    private boolean published;
+
+    /**
+     * Creates a staging directory for the given target, reusing the most recent one left by an earlier process if
+     * there is one, and no other process is using it.
+     *
+     * @param target the directory whose contents are to be replaced
+     * @param scratch the directory in which contents should be staged, or null to stage them alongside the target
+     * @throws IOException if the staging directory cannot be created
+     */
+    public StagedDirectory(File target, File scratch) throws IOException {
+        this.target = target.getAbsoluteFile();
+        File parent = scratch != null ? scratch : this.target.getParentFile();
+        FileUtils.forceMkdir(parent);
+
+        String prefix = getPrefix(this.target);
+        File[] candidates = parent.listFiles((dir, name) -> name.startsWith(prefix) && !name.endsWith(JOURNAL_SUFFIX));
+        if (candidates == null) {
+            candidates = new File[0];
+        }
+        Arrays.sort(candidates, Comparator.comparingLong((File candidate) -> getJournal(candidate).lastModified()).reversed());
+
+        File reused = null;
+        FileChannel channel = null;
+        for (File candidate : candidates) {
+            if (candidate.isDirectory() && getJournal(candidate).exists() && !isStale(candidate)) {
+                channel = lock(getJournal(candidate));
+                if (channel != null) {
+                    reused = candidate;
+                    break;
+                }
+                LOGGER.debug("Ignoring contents staged at '{}', in use by another process", candidate.getAbsolutePath());
+            }
+        }
+        if (reused != null) {
+            LOGGER.debug("Reusing contents staged at '{}'", reused.getAbsolutePath());
+            this.directory = reused;
+        } else {
+            this.directory = Files.createTempDirectory(parent.toPath(), prefix).toFile();
+            channel = lock(getJournal(directory));
+            if (channel == null) {
+                throw new IOException("Unable to lock '" + getJournal(directory).getAbsolutePath() + "'");
+            }
+        }
+        this.journal = getJournal(directory);
+        this.lockChannel = channel;
+    }
+
+    /**
+     * Opens the journal in which the steps taken to populate the staging directory should be recorded.  If the
+     * journal was written for some other fingerprint, or not at all, any contents left in the staging directory by
+     * an earlier process are deleted.
+     *
+     * @param fingerprint some identifier of the inputs used to populate the staging directory
+     * @return the journal, which the caller is responsible for closing
+     * @throws IOException if the journal cannot be opened
+     */
+    public Journal openJournal(String fingerprint) throws IOException {
+        Journal result = new Journal(journal, fingerprint);
+        if (!result.isResumed()) {
+            FileUtils.cleanDirectory(directory);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the directory to which contents should be written prior to {@link #publish(String...) publication}.
+     *
+     * @return the staging directory
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Replaces the target directory with the staged contents.
+     *
+     * @param preserved the names of any subdirectories of the existing target whose contents should be carried
+     *                  over to the new one (hard linked, where possible)
+     * @throws IOException if the contents cannot be published, in which case the target is left as it was
+     */
+    public void publish(String... preserved) throws IOException {
+
+        File parent = target.getParentFile();
+        File staged = directory;
+        if (!staged.getAbsoluteFile().getParentFile().equals(parent)) {
+            staged = Files.createTempDirectory(parent.toPath(), getPrefix(target)).toFile();
+            Files.delete(staged.toPath());
+            LOGGER.debug("Moving staged contents from '{}' to '{}'", directory.getAbsolutePath(), staged.getAbsolutePath());
+            FileUtils.moveDirectory(directory, staged);
+        }
+
+        try {
+            for (String name : preserved) {
+                File source = new File(target, name);
+                if (source.isDirectory()) {
+                    for (File file : FileUtils.listFiles(source, null, true)) {
+                        File destination = new File(staged, target.toPath().relativize(file.toPath()).toString());
+                        if (!destination.exists()) {
+                            LinkUtils.linkOrCopy(file, destination);
+                        }
+                    }
+                }
+            }
+
+            File old = null;
+            if (target.exists()) {
+                old = new File(parent, target.getName() + ".old-" + System.currentTimeMillis());
+                Files.move(target.toPath(), old.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            }
+            try {
+                Files.move(staged.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                if (old != null) {
+                    Files.move(old.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                }
+                throw e;
+            }
+            published = true;
+            close();
+            FileUtils.deleteQuietly(journal);
+            LOGGER.debug("Published '{}'", target.getAbsolutePath());
+
+            if (old != null) {
+                deleteInBackground(old);
+            }
+        } finally {
+            if (!published) {
+                close();
+                FileUtils.deleteQuietly(staged);
+                FileUtils.deleteQuietly(journal);
+            }
+        }
+    }
+
+    /**
+     * Deletes the staged contents (and any journal), unless they have already been published.
+     */
+    public void discard() {
+        if (!published) {
+            closeQuietly();
+            FileUtils.deleteQuietly(directory);
+            FileUtils.deleteQuietly(journal);
+        }
+    }
+
+    /**
+     * Releases the staging directory for use by other processes, leaving any unpublished contents to be resumed.
+     *
+     * @throws IOException if the lock cannot be released
+     */
+    @Override
+    public void close() throws IOException {
+        //closing the channel releases its lock
+        lockChannel.close();
+    }
+
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (IOException e) {
+            LOGGER.debug("Unable to release '{}'", journal.getAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Deletes, in the background, anything left alongside the given target directory by earlier processes: contents
+     * superseded by a later publication, and contents staged by a process that did not complete.
+     *
+     * @param target the directory whose siblings should be inspected
+     * @param scratch the directory in which contents are staged, if other than alongside the target, or null
+     */
+    public static void cleanUp(File target, File scratch) {
+        File absolute = target.getAbsoluteFile();
+        String prefix = getPrefix(absolute);
+        File[] parents = scratch == null || scratch.getAbsoluteFile().equals(absolute.getParentFile())
+            ? new File[] {absolute.getParentFile()} : new File[] {absolute.getParentFile(), scratch.getAbsoluteFile()};
+        for (File parent : parents) {
+            File[] siblings = parent.listFiles();
+            if (siblings == null) {
+                continue;
+            }
+            for (File sibling : siblings) {
+                String name = sibling.getName();
+                if (name.startsWith(absolute.getName() + ".old-") && parent.equals(absolute.getParentFile())) {
+                    deleteInBackground(sibling);
+                } else if (name.startsWith(prefix) && isStale(sibling) && !isLocked(sibling)) {
+                    deleteInBackground(sibling);
+                }
+            }
+        }
+    }
+
+    //e.g. 'smartgwtpower.staging-3f2a9c1b07d4-', identifying the target by its full path as well as its name
+    private static String getPrefix(File target) {
+        String hash = Hashing.sha256().hashString(target.getAbsolutePath(), StandardCharsets.UTF_8).toString();
+        return target.getName() + ".staging-" + hash.substring(0, 12) + "-";
+    }
+
+    private static File getJournal(File staged) {
+        return new File(staged.getPath() + JOURNAL_SUFFIX);
+    }
+
+    /**
+     * Locks the given journal, creating it if necessary, unless it is already locked by this or some other process.
+     * Only a single byte far beyond the end of the file is locked, so that the journal itself can still be written on
+     * platforms where locks are mandatory.
+     *
+     * @param journal the journal to be locked
+     * @return the channel holding the lock, or null if the journal is already locked
+     * @throws IOException if the journal cannot be opened
+     */
+    private static FileChannel lock(File journal) throws IOException {
+        FileChannel channel = FileChannel.open(journal.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            FileLock lock = channel.tryLock(Long.MAX_VALUE - 1, 1, false);
+            if (lock != null) {
+                return channel;
+            }
+        } catch (OverlappingFileLockException e) {
+            //held by this process
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        channel.close();
+        return null;
+    }
+
+    //the staging directory, or the journal of one, is in use by some process
+    private static boolean isLocked(File staged) {
+        File journal = staged.getName().endsWith(JOURNAL_SUFFIX) ? staged : getJournal(staged);
+        if (!journal.exists()) {
+            return false;
+        }
+        try {
+            FileChannel channel = lock(journal);
+            if (channel == null) {
+                return true;
+            }
+            channel.close();
+            return false;
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    private static boolean isStale(File staged) {
+        File journal = staged.getName().endsWith(JOURNAL_SUFFIX) ? staged : getJournal(staged);
+        long lastModified = Math.max(staged.lastModified(), journal.lastModified());
+        return System.currentTimeMillis() - lastModified > STALE_AFTER;
+    }
+
+    private static void deleteInBackground(File directory) {
+        LOGGER.debug("Deleting '{}' in the background", directory.getAbsolutePath());
+        Thread thread = new Thread(() -> FileUtils.deleteQuietly(directory), "isc-cleanup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+}
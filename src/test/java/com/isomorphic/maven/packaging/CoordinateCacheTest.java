@@ -0,0 +1,135 @@
+package com.isomorphic.maven.packaging;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.model.Model;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+
+public class CoordinateCacheTest {
+
+    private static final byte[] POM = "<project><artifactId>smartgwt</artifactId></project>".getBytes(StandardCharsets.UTF_8);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void returnsRecordedCoordinates() throws Exception {
+        File file = new File(folder.getRoot(), "coordinates.properties");
+        File pom = new File(folder.getRoot(), "smartgwt.pom");
+        String key = CoordinateCache.getKey(POM, "release");
+
+        CoordinateCache cache = new CoordinateCache(file);
+        Assert.assertNull(cache.get(key, pom));
+        cache.put(key, model("com.isomorphic.smartgwt.eval", "smartgwt-eval", "13.1", null));
+        assertModel(cache.get(key, pom), pom, "com.isomorphic.smartgwt.eval", "smartgwt-eval", "13.1", null);
+        cache.save();
+
+        assertModel(new CoordinateCache(file).get(key, pom), pom, "com.isomorphic.smartgwt.eval", "smartgwt-eval", "13.1", null);
+    }
+
+    @Test
+    public void missesWhenContentChanges() throws Exception {
+        File file = new File(folder.getRoot(), "coordinates.properties");
+        CoordinateCache cache = new CoordinateCache(file);
+        cache.put(CoordinateCache.getKey(POM, "release"), model("com.isomorphic", "smartgwt", "13.1", "jar"));
+        cache.save();
+
+        byte[] changed = "<project><artifactId>smartgwt</artifactId><version>13.2</version></project>".getBytes(StandardCharsets.UTF_8);
+        Assert.assertNull(new CoordinateCache(file).get(CoordinateCache.getKey(changed, "release"), null));
+    }
+
+    @Test
+    public void separatesReleasesFromSnapshots() throws Exception {
+        File file = new File(folder.getRoot(), "coordinates.properties");
+        String release = CoordinateCache.getKey(POM, "release");
+        String snapshot = CoordinateCache.getKey(POM, "snapshot");
+        Assert.assertNotEquals(release, snapshot);
+
+        CoordinateCache cache = new CoordinateCache(file);
+        cache.put(release, model("com.isomorphic", "smartgwt", "13.1", "jar"));
+        Assert.assertNull(cache.get(snapshot, null));
+
+        cache.put(snapshot, model("com.isomorphic", "smartgwt", "13.1-SNAPSHOT", "jar"));
+        cache.save();
+        cache = new CoordinateCache(file);
+        Assert.assertEquals("13.1", cache.get(release, null).getVersion());
+        Assert.assertEquals("13.1-SNAPSHOT", cache.get(snapshot, null).getVersion());
+    }
+
+    @Test
+    public void ignoresMissingFile() throws Exception {
+        File file = new File(folder.getRoot(), "missing/coordinates.properties");
+        CoordinateCache cache = new CoordinateCache(file);
+        Assert.assertNull(cache.get(CoordinateCache.getKey(POM, "release"), null));
+
+        //nothing recorded, so nothing written
+        cache.save();
+        Assert.assertFalse(file.exists());
+
+        cache.put(CoordinateCache.getKey(POM, "release"), model("com.isomorphic", "smartgwt", "13.1", "jar"));
+        cache.save();
+        Assert.assertTrue(file.exists());
+    }
+
+    @Test
+    public void ignoresCorruptFile() throws Exception {
+        File file = new File(folder.getRoot(), "coordinates.properties");
+        String key = CoordinateCache.getKey(POM, "release");
+        //a malformed escape, and an entry with the wrong number of values
+        Files.write(file.toPath(), (key + "=com.isomorphic\\u00\n").getBytes(StandardCharsets.ISO_8859_1));
+        Assert.assertNull(new CoordinateCache(file).get(key, null));
+
+        Files.write(file.toPath(), (key + "=com.isomorphic\\tsmartgwt\n").getBytes(StandardCharsets.ISO_8859_1));
+        CoordinateCache cache = new CoordinateCache(file);
+        Assert.assertNull(cache.get(key, null));
+
+        //and is replaced once something is recorded
+        cache.put(key, model("com.isomorphic", "smartgwt", "13.1", "jar"));
+        cache.save();
+        Assert.assertEquals("smartgwt", new CoordinateCache(file).get(key, null).getArtifactId());
+    }
+
+    private static Model model(String groupId, String artifactId, String version, String packaging) {
+        Model result = new Model();
+        result.setGroupId(groupId);
+        result.setArtifactId(artifactId);
+        result.setVersion(version);
+        result.setPackaging(packaging);
+        return result;
+    }
+
+    private static void assertModel(Model model, File pom, String groupId, String artifactId, String version, String packaging) {
+        Assert.assertNotNull(model);
+        Assert.assertEquals(pom, model.getPomFile());
+        Assert.assertEquals(groupId, model.getGroupId());
+        Assert.assertEquals(artifactId, model.getArtifactId());
+        Assert.assertEquals(version, model.getVersion());
+        Assert.assertEquals(packaging, model.getPackaging());
+    }
+
+}
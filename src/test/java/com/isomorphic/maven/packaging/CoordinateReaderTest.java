@@ -0,0 +1,98 @@
+package com.isomorphic.maven.packaging;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.model.Model;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+
+public class CoordinateReaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void matchesMavenReader() throws Exception {
+        String[] poms = {
+            "<project><modelVersion>4.0.0</modelVersion><groupId>com.isomorphic.smartclient.eval</groupId>"
+                + "<artifactId>isomorphic-core-rpc</artifactId><version>13.1-p20250101</version></project>",
+            "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<!-- comment -->\n"
+                + "<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n"
+                + "  <parent>\n    <groupId> com.isomorphic </groupId>\n    <artifactId>parent</artifactId>\n"
+                + "    <version>1.0</version>\n    <relativePath/>\n  </parent>\n"
+                + "  <artifactId>smartgwt</artifactId>\n  <packaging>pom</packaging>\n"
+                + "  <dependencies><dependency><groupId>x</groupId><artifactId>y</artifactId>"
+                + "<version>2</version></dependency></dependencies>\n</project>\n",
+            "<project><artifactId><![CDATA[cdata]]></artifactId><version>1&amp;2</version></project>"
+        };
+        for (String content : poms) {
+            File pom = write(content);
+            Model expected;
+            try (Reader reader = new FileReader(pom)) {
+                expected = new MavenXpp3Reader().read(reader, false);
+            }
+            Model actual = CoordinateReader.read(pom);
+
+            Assert.assertNotNull(content, actual);
+            Assert.assertEquals(expected.getGroupId(), actual.getGroupId());
+            Assert.assertEquals(expected.getArtifactId(), actual.getArtifactId());
+            Assert.assertEquals(expected.getVersion(), actual.getVersion());
+            Assert.assertEquals(expected.getPackaging(), actual.getPackaging());
+            Assert.assertEquals(expected.getParent() == null, actual.getParent() == null);
+            if (expected.getParent() != null) {
+                Assert.assertEquals(expected.getParent().getId(), actual.getParent().getId());
+            }
+            Assert.assertEquals(pom, actual.getPomFile());
+        }
+    }
+
+    @Test
+    public void leavesComplexPomsToModelBuilder() throws Exception {
+        String[] poms = {
+            "<project><artifactId>a</artifactId><version>${revision}</version></project>",
+            "<project><parent><groupId>g</groupId><artifactId>p</artifactId></parent><artifactId>a</artifactId></project>",
+            "<?xml version=\"1.0\"?><!DOCTYPE project [<!ENTITY v \"1.0\">]><project><artifactId>a</artifactId><version>&v;</version></project>",
+            "<project><artifactId>a</artifactId><artifactId>b</artifactId></project>",
+            "<project><groupId>g</groupId></project>",
+            "<project><artifactId>a</artifactId>",
+            "<settings><artifactId>a</artifactId></settings>"
+        };
+        for (String content : poms) {
+            Assert.assertNull(content, CoordinateReader.read(write(content)));
+        }
+    }
+
+    private File write(String content) throws Exception {
+        File result = folder.newFile();
+        Files.write(result.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return result;
+    }
+
+}
@@ -0,0 +1,119 @@
+package com.isomorphic.maven.packaging;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import com.isomorphic.maven.packaging.ExtractionManifest.Kind;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+
+public class ExtractionManifestTest {
+
+    private static final String[] PATHS = {
+        "smartgwt.jar", "lib/smartgwt.jar", "lib/isomorphic_core_rpc.jar", "pom/smartgwt.pom", "pom/SmartGWT.xml",
+        "assembly/smartgwt-resources.zip", "spring-boot/lib/smartgwt-spring-boot-starter.jar",
+        "spring-boot/smartgwt-spring-boot-starter-parent-1.0.pom", "samples/lib/sample.jar", "smartgwtee.pom",
+        "doc/smartgwt-javadoc.jar", "doc/lib/isomorphic-core-rpc-javadoc.jar", "doc/api/index.html",
+        "bin/start.sh", "bin/start.bat", "start.command", "readme.txt"
+    };
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void classifiesFiles() {
+        ExtractionManifest manifest = manifest();
+
+        Assert.assertEquals(Arrays.asList("smartgwt.jar", "lib/smartgwt.jar", "lib/isomorphic_core_rpc.jar",
+            "pom/SmartGWT.xml", "assembly/smartgwt-resources.zip", "spring-boot/lib/smartgwt-spring-boot-starter.jar",
+            "spring-boot/smartgwt-spring-boot-starter-parent-1.0.pom"), manifest.getPaths(Kind.ARTIFACT));
+        Assert.assertEquals(Arrays.asList("pom/smartgwt.pom", "spring-boot/smartgwt-spring-boot-starter-parent-1.0.pom",
+            "smartgwtee.pom"), manifest.getPaths(Kind.POM));
+        Assert.assertEquals(Arrays.asList("doc/smartgwt-javadoc.jar", "doc/lib/isomorphic-core-rpc-javadoc.jar"),
+            manifest.getPaths(Kind.JAVADOC));
+        Assert.assertEquals(Arrays.asList("bin/start.sh", "bin/start.bat", "start.command"), manifest.getPaths(Kind.SCRIPT));
+    }
+
+    @Test
+    public void looksUpPomsAndJavadoc() {
+        ExtractionManifest manifest = manifest();
+        File root = folder.getRoot();
+
+        Assert.assertEquals(Collections.singletonList(new File(root, "pom/smartgwt.pom")), manifest.getPoms("SMARTGWT.pom", root));
+        Assert.assertTrue(manifest.getPoms("missing.pom", root).isEmpty());
+        Assert.assertEquals(Collections.singletonList(new File(root, "doc/smartgwt-javadoc.jar")),
+            manifest.getJavadoc("smartgwt", root));
+        Assert.assertEquals(2, manifest.getJavadoc("", root).size());
+    }
+
+    @Test
+    public void removesTrees() {
+        ExtractionManifest manifest = manifest();
+        manifest.removeTree("pom");
+        manifest.removeTree("doc/");
+
+        Assert.assertFalse(manifest.getPaths(Kind.ARTIFACT).contains("pom/SmartGWT.xml"));
+        Assert.assertTrue(manifest.getPoms("smartgwt.pom", folder.getRoot()).isEmpty());
+        Assert.assertTrue(manifest.getPaths(Kind.JAVADOC).isEmpty());
+        Assert.assertEquals(Arrays.asList("spring-boot/smartgwt-spring-boot-starter-parent-1.0.pom", "smartgwtee.pom"),
+            manifest.getPaths(Kind.POM));
+    }
+
+    @Test
+    public void scansDirectory() throws Exception {
+        for (String path : PATHS) {
+            File file = new File(folder.getRoot(), path);
+            file.getParentFile().mkdirs();
+            file.createNewFile();
+        }
+        ExtractionManifest scanned = ExtractionManifest.scan(folder.getRoot());
+        ExtractionManifest added = manifest();
+
+        for (Kind kind : Kind.values()) {
+            Assert.assertEquals(kind.name(), sorted(added.getPaths(kind)), sorted(scanned.getPaths(kind)));
+        }
+    }
+
+    private static ExtractionManifest manifest() {
+        ExtractionManifest result = new ExtractionManifest();
+        for (String path : PATHS) {
+            result.add(path);
+            //adding the same path again has no effect
+            result.add(path);
+        }
+        return result;
+    }
+
+    private static List<String> sorted(Collection<String> paths) {
+        List<String> result = new ArrayList<String>(paths);
+        Collections.sort(result);
+        return result;
+    }
+
+}
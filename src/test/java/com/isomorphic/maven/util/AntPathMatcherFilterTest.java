@@ -0,0 +1,114 @@
+package com.isomorphic.maven.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.Random;
+
+
+public class AntPathMatcherFilterTest {
+
+    private static final AntPathMatcher MATCHER = new AntPathMatcher();
+
+    private static final String[] PATTERNS = {
+        "**/*", "**", "*", "**/samples/**", "**/*tomcat*.jar", "**/isomorphic_applets.jar", "**/smartclientSDK/**",
+        "**/lib/*.jar", "lib/*.jar", "/lib/**", "lib/", "a/**/b", "a/**/b/**/c", "**/a/*/b", "a?c/**", "*.js",
+        "**/doc/server/javadoc/**", "**/WEB-INF/lib/*.jar", "a/*/", "**/**/x", "a//b", "{name}.jar", "a/{d:[a-z]+}/**",
+        "**/smartclient-showcase-resources*.jar", "a/*", "**/a*b?/c"
+    };
+
+    private static final String[] SEGMENTS = {
+        "a", "b", "c", "x", "abc", "a1b2", "lib", "samples", "smartclientSDK", "isc-tomcat-9.jar", "foo.jar", "x.js",
+        "WEB-INF", "doc", "server", "javadoc", "isomorphic_applets.jar", ""
+    };
+
+    @Test
+    public void matchesAntPathMatcher() {
+
+        Random random = new Random(42);
+        for (int i = 0; i < 20000; i++) {
+            String include = pattern(random);
+            String exclude = random.nextInt(3) == 0 ? null : pattern(random);
+            AntPathMatcherFilter filter = new AntPathMatcherFilter(include, exclude);
+            String path = path(random);
+
+            boolean expected = (exclude == null || !MATCHER.match(exclude, path)) && MATCHER.match(include, path);
+            Assert.assertEquals(include + " - " + exclude + " : " + path, expected, filter.accept(path));
+        }
+    }
+
+    @Test
+    public void neverAcceptsUnderUnreachableDirectory() {
+
+        Random random = new Random(7);
+        for (int i = 0; i < 20000; i++) {
+            String include = pattern(random);
+            String exclude = pattern(random);
+            AntPathMatcherFilter filter = new AntPathMatcherFilter(include, exclude);
+            String directory = path(random);
+            if (!filter.mayAcceptUnder(directory)) {
+                String path = directory + "/" + path(random);
+                Assert.assertFalse(include + " - " + exclude + " : " + path, filter.accept(path));
+            }
+        }
+    }
+
+    @Test
+    public void skipsExcludedSubtrees() {
+        AntPathMatcherFilter filter = new AntPathMatcherFilter("**/lib/*.jar, **/smartclientSDK/**", "**/samples/**");
+
+        Assert.assertFalse(filter.mayAcceptUnder("sdk/samples"));
+        Assert.assertFalse(filter.mayAcceptUnder("sdk/samples/lib/"));
+        Assert.assertTrue(filter.mayAcceptUnder("sdk/lib"));
+        Assert.assertFalse(new AntPathMatcherFilter("lib/*.jar", null).mayAcceptUnder("other"));
+    }
+
+    @Test
+    public void copy() {
+        AntPathMatcherFilter copy = new AntPathMatcherFilter("lib/*.jar", null).copy();
+
+        Assert.assertTrue(copy.accept("lib/a.jar"));
+        Assert.assertFalse(copy.accept("doc/a.jar"));
+        Assert.assertTrue(new AntPathMatcherFilter().copy().accept("doc/a.jar"));
+    }
+
+    private static String pattern(Random random) {
+        return PATTERNS[random.nextInt(PATTERNS.length)];
+    }
+
+    private static String path(Random random) {
+        StringBuilder result = new StringBuilder(random.nextInt(8) == 0 ? "/" : "");
+        int segments = 1 + random.nextInt(5);
+        for (int i = 0; i < segments; i++) {
+            if (i > 0) {
+                result.append('/');
+            }
+            result.append(SEGMENTS[random.nextInt(SEGMENTS.length)]);
+        }
+        if (random.nextInt(8) == 0) {
+            result.append('/');
+        }
+        return result.toString();
+    }
+
+}
@@ -0,0 +1,142 @@
+package com.isomorphic.maven.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.jar.JarInputStream;
+
+
+public class ArchiveUtilsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void writesParentDirectoriesOfCopiedEntries() throws Exception {
+        File source = archive("a/b/c.txt", "a/d.txt", "x/q.txt");
+        File directory = folder.newFolder();
+        new File(directory, "x/y").mkdirs();
+        new File(directory, "x/y/f.txt").createNewFile();
+
+        File output = new File(folder.getRoot(), "output.zip");
+        try (ZipFile zip = new ZipFile(source)) {
+            ArchiveUtils.zip(directory, entries(zip), output, new ArchiveOptions());
+        }
+
+        Assert.assertEquals(Arrays.asList("a/", "a/b/", "a/b/c.txt", "a/d.txt", "x/", "x/q.txt", "x/y/", "x/y/f.txt"),
+            names(output));
+    }
+
+    @Test
+    public void filtersArchiveInPlace() throws Exception {
+        File archive = archive("a/", "a/keep.txt", "a/drop.txt");
+        long modified = archive.lastModified();
+
+        Assert.assertFalse(ArchiveUtils.filter(archive, name -> true, new ArchiveOptions()));
+        Assert.assertEquals(modified, archive.lastModified());
+
+        Assert.assertTrue(ArchiveUtils.filter(archive, name -> !name.endsWith("drop.txt"), new ArchiveOptions()));
+        Assert.assertEquals(Arrays.asList("a/", "a/keep.txt"), names(archive));
+        Assert.assertFalse(new File(archive.getPath() + ".tmp").exists());
+    }
+
+    @Test
+    public void writesManifestFirstWhenReproducible() throws Exception {
+        File source = archive("Foo.txt", "META-INF/LICENSE.txt", "META-INF/MANIFEST.MF", "com/Foo.class");
+        File directory = folder.newFolder();
+        new File(directory, "META-INF").mkdirs();
+        new File(directory, "META-INF/MANIFEST.MF").createNewFile();
+        new File(directory, "Bar.txt").createNewFile();
+
+        ArchiveOptions options = new ArchiveOptions();
+        options.setTimestamp(1700000000000L);
+
+        File first = new File(folder.getRoot(), "first.jar");
+        File second = new File(folder.getRoot(), "second.jar");
+        File generated = new File(folder.getRoot(), "generated.jar");
+        File fromDirectory = new File(folder.getRoot(), "directory.jar");
+        try (ZipFile zip = new ZipFile(source)) {
+            ArchiveUtils.jar(null, entries(zip), first, options);
+            ArchiveUtils.jar(null, entries(zip), second, options);
+        }
+        ArchiveUtils.jar(directory, Collections.<RelocatedZipEntry>emptyList(), fromDirectory, options);
+        File other = folder.newFolder();
+        new File(other, "Foo.txt").createNewFile();
+        ArchiveUtils.jar(other, generated, options);
+
+        Assert.assertEquals(Arrays.asList("META-INF/", "META-INF/MANIFEST.MF", "Foo.txt", "META-INF/LICENSE.txt", "com/",
+            "com/Foo.class"), names(first));
+        Assert.assertArrayEquals(Files.readAllBytes(first.toPath()), Files.readAllBytes(second.toPath()));
+        for (File jar : new File[] {first, generated, fromDirectory}) {
+            try (JarInputStream in = new JarInputStream(new FileInputStream(jar))) {
+                Assert.assertNotNull(jar.getName(), in.getManifest());
+            }
+        }
+    }
+
+    private File archive(String... names) throws IOException {
+        File result = folder.newFile();
+        try (ZipArchiveOutputStream out = new ZipArchiveOutputStream(result)) {
+            for (String name : names) {
+                out.putArchiveEntry(new ZipArchiveEntry(name));
+                if (!name.endsWith("/")) {
+                    out.write(name.getBytes(StandardCharsets.UTF_8));
+                }
+                out.closeArchiveEntry();
+            }
+        }
+        return result;
+    }
+
+    private static List<RelocatedZipEntry> entries(ZipFile zip) {
+        List<RelocatedZipEntry> result = new ArrayList<RelocatedZipEntry>();
+        for (ZipArchiveEntry entry : Collections.list(zip.getEntries())) {
+            result.add(new RelocatedZipEntry(zip, entry, entry.getName()));
+        }
+        return result;
+    }
+
+    private static List<String> names(File archive) throws IOException {
+        List<String> result = new ArrayList<String>();
+        try (ZipFile zip = new ZipFile(archive)) {
+            for (ZipArchiveEntry entry : Collections.list(zip.getEntriesInPhysicalOrder())) {
+                result.add(entry.getName());
+            }
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,125 @@
+package com.isomorphic.maven.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+
+public class ExtractionWriterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void extractsNestedEntriesConcurrently() throws Exception {
+        Map<String, byte[]> contents = new LinkedHashMap<String, byte[]>();
+        for (int i = 0; i < 200; i++) {
+            //a handful of directories, several levels deep and shared between entries
+            String name = "isomorphic/skins/skin" + (i % 5) + "/images/set" + (i % 3) + "/file" + i + ".txt";
+            contents.put(name, content(i, i * 37));
+        }
+        //larger than the initial buffer, and larger than any entry read in full
+        contents.put("isomorphic/system/modules/large.js", content(1, 100 * 1024));
+        contents.put("isomorphic/system/modules/huge.js", content(2, 3 * 1024 * 1024));
+
+        File archive = folder.newFile("archive.zip");
+        try (ZipArchiveOutputStream out = new ZipArchiveOutputStream(archive)) {
+            for (Map.Entry<String, byte[]> entry : contents.entrySet()) {
+                out.putArchiveEntry(new ZipArchiveEntry(entry.getKey()));
+                out.write(entry.getValue());
+                out.closeArchiveEntry();
+            }
+        }
+
+        File to = new File(folder.getRoot(), "unpacked");
+        ExtractionWriter writer = new ExtractionWriter();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try (ZipFile zip = new ZipFile(archive)) {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (ZipArchiveEntry entry : Collections.list(zip.getEntries())) {
+                futures.add(pool.submit(() -> {
+                    try (InputStream in = zip.getInputStream(entry)) {
+                        writer.write(in, entry.getSize(), new File(to, entry.getName()));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        for (int i = 0; i < 5; i++) {
+            for (int j = 0; j < 3; j++) {
+                Assert.assertTrue(new File(to, "isomorphic/skins/skin" + i + "/images/set" + j).isDirectory());
+            }
+        }
+        for (Map.Entry<String, byte[]> entry : contents.entrySet()) {
+            Assert.assertArrayEquals(entry.getKey(), entry.getValue(), Files.readAllBytes(new File(to, entry.getKey()).toPath()));
+        }
+    }
+
+    @Test
+    public void toleratesInaccurateSize() throws Exception {
+        ExtractionWriter writer = new ExtractionWriter();
+        File target = new File(folder.getRoot(), "a/b/c.txt");
+        byte[] content = content(3, 5000);
+
+        writer.write(new ByteArrayInputStream(content), 10, target);
+        Assert.assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+
+        //replacing the longer file written above
+        writer.write(new ByteArrayInputStream("short".getBytes(StandardCharsets.UTF_8)), -1, target);
+        Assert.assertEquals("short", new String(Files.readAllBytes(target.toPath()), StandardCharsets.UTF_8));
+    }
+
+    private static byte[] content(int seed, int size) {
+        byte[] result = new byte[size];
+        Arrays.fill(result, (byte) seed);
+        for (int i = 0; i < size; i += 97) {
+            result[i] = (byte) (i / 97);
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,95 @@
+package com.isomorphic.maven.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+
+public class JournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void resumesCompletedSteps() throws Exception {
+        File file = new File(folder.getRoot(), "journal");
+        try (Journal journal = new Journal(file, "inputs")) {
+            Assert.assertFalse(journal.isResumed());
+            journal.complete("a");
+            journal.complete("b");
+        }
+
+        try (Journal journal = new Journal(file, "inputs")) {
+            Assert.assertTrue(journal.isResumed());
+            Assert.assertTrue(journal.isComplete("a"));
+            Assert.assertTrue(journal.isComplete("b"));
+            Assert.assertFalse(journal.isComplete("c"));
+        }
+    }
+
+    @Test
+    public void discardsStepsForOtherInputs() throws Exception {
+        File file = new File(folder.getRoot(), "journal");
+        try (Journal journal = new Journal(file, "inputs")) {
+            journal.complete("a");
+        }
+
+        try (Journal journal = new Journal(file, "other inputs")) {
+            Assert.assertFalse(journal.isResumed());
+            Assert.assertFalse(journal.isComplete("a"));
+        }
+        Assert.assertEquals("other inputs\n", read(file));
+    }
+
+    @Test
+    public void resumesFromPartialLine() throws Exception {
+        File file = new File(folder.getRoot(), "journal");
+        try (Journal journal = new Journal(file, "inputs")) {
+            journal.complete("a");
+        }
+        //as if killed while writing the next step
+        Files.write(file.toPath(), "assembly sma".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        try (Journal journal = new Journal(file, "inputs")) {
+            Assert.assertTrue(journal.isComplete("a"));
+            Assert.assertFalse(journal.isComplete("assembly sma"));
+            journal.complete("b");
+        }
+        Assert.assertEquals("inputs\na\nb\n", read(file));
+
+        try (Journal journal = new Journal(file, "inputs")) {
+            Assert.assertTrue(journal.isComplete("a"));
+            Assert.assertTrue(journal.isComplete("b"));
+        }
+    }
+
+    private static String read(File file) throws Exception {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.isomorphic.maven.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+
+public class LinkUtilsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void replacesExistingTarget() throws Exception {
+        File source = folder.newFile();
+        Files.write(source.toPath(), "new".getBytes(StandardCharsets.UTF_8));
+        File target = new File(folder.getRoot(), "a/b/target.txt");
+        target.getParentFile().mkdirs();
+        Files.write(target.toPath(), "old".getBytes(StandardCharsets.UTF_8));
+
+        LinkUtils.linkOrCopy(source, target);
+        Assert.assertEquals("new", new String(Files.readAllBytes(target.toPath()), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void rewritingOneTargetLeavesOthersUnchanged() throws Exception {
+        File source = folder.newFile("source.jar");
+        try (ZipArchiveOutputStream out = new ZipArchiveOutputStream(source)) {
+            for (String name : new String[] {"skins/Tahoe/skin.css", "skins/Enterprise/skin.css"}) {
+                out.putArchiveEntry(new ZipArchiveEntry(name));
+                out.write(name.getBytes(StandardCharsets.UTF_8));
+                out.closeArchiveEntry();
+            }
+        }
+        byte[] original = Files.readAllBytes(source.toPath());
+        File first = new File(folder.getRoot(), "lib/first.jar");
+        File second = new File(folder.getRoot(), "samples/lib/second.jar");
+
+        boolean linked = LinkUtils.linkOrCopy(source, first);
+        Assert.assertEquals(linked, LinkUtils.linkOrCopy(source, second));
+        if (linked) {
+            Assert.assertTrue(Files.isSameFile(source.toPath(), second.toPath()));
+        }
+
+        //as when pruning skins, the archive is rewritten to a temporary file that then replaces it
+        Assert.assertTrue(ArchiveUtils.filter(first, name -> !name.startsWith("skins/Enterprise/"), new ArchiveOptions()));
+
+        try (ZipFile zip = new ZipFile(first)) {
+            Assert.assertNull(zip.getEntry("skins/Enterprise/skin.css"));
+        }
+        Assert.assertArrayEquals(original, Files.readAllBytes(source.toPath()));
+        Assert.assertArrayEquals(original, Files.readAllBytes(second.toPath()));
+    }
+
+}
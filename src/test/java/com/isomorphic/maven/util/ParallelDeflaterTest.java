@@ -0,0 +1,91 @@
+package com.isomorphic.maven.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+
+public class ParallelDeflaterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void writesEntriesInOrder() throws Exception {
+
+        //small and large, compressible and not, stored and deflated
+        Random random = new Random(42);
+        SortedMap<String, File> files = new TreeMap<String, File>();
+        files.put("dir/", folder.newFolder("dir"));
+        for (int i = 0; i < 50; i++) {
+            byte[] content = new byte[i == 7 ? 9 * 1024 * 1024 : random.nextInt(64 * 1024)];
+            if (i % 2 == 0) {
+                random.nextBytes(content);
+            }
+            File file = new File(folder.getRoot(), "dir/file" + i + (i % 5 == 0 ? ".png" : ".txt"));
+            Files.write(file.toPath(), content);
+            files.put("dir/" + file.getName(), file);
+        }
+
+        for (int threads : new int[] {1, 4}) {
+            ArchiveOptions options = new ArchiveOptions();
+            options.setThreads(threads);
+            File output = new File(folder.getRoot(), threads + ".zip");
+            try (ZipArchiveOutputStream out = new ZipArchiveOutputStream(output)) {
+                ParallelDeflater.write(out, files, options);
+            }
+
+            try (ZipFile zip = new ZipFile(output)) {
+                List<String> names = new ArrayList<String>();
+                for (ZipArchiveEntry entry : Collections.list(zip.getEntriesInPhysicalOrder())) {
+                    names.add(entry.getName());
+                    if (!entry.isDirectory()) {
+                        try (InputStream in = zip.getInputStream(entry)) {
+                            Assert.assertArrayEquals(entry.getName(), Files.readAllBytes(files.get(entry.getName()).toPath()),
+                                IOUtils.toByteArray(in));
+                        }
+                    }
+                    if (entry.getName().endsWith(".png")) {
+                        Assert.assertEquals(entry.getName(), ZipArchiveEntry.STORED, entry.getMethod());
+                    }
+                }
+                Assert.assertEquals(new ArrayList<String>(files.keySet()), names);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,187 @@
+package com.isomorphic.maven.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import com.google.common.hash.Hashing;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.auth.UsernamePasswordCredentials;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+public class RemoteChecksumsTest {
+
+    private static final String AUTHORIZATION = "Basic " + Base64.getEncoder().encodeToString("user:secret".getBytes(StandardCharsets.UTF_8));
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final Map<String, String> files = new HashMap<String, String>();
+    private final List<String> requests = Collections.synchronizedList(new ArrayList<String>());
+    private final List<String> authorized = Collections.synchronizedList(new ArrayList<String>());
+    private boolean secured;
+    private HttpServer server;
+    private String url;
+
+    @Before
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/repository/", this::handle);
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/repository";
+    }
+
+    @After
+    public void stop() {
+        server.stop(0);
+    }
+
+    @Test
+    public void comparesSha1() throws Exception {
+        Artifact artifact = artifact("isomorphic-core-rpc", "", "jar", "13.1", "content");
+        files.put("com/isomorphic/isomorphic-core-rpc/13.1/isomorphic-core-rpc-13.1.jar.sha1",
+            sha1("content").toUpperCase() + "  isomorphic-core-rpc-13.1.jar\n");
+        Artifact changed = artifact("isomorphic-core-rpc", "javadoc", "jar", "13.1", "changed");
+        files.put("com/isomorphic/isomorphic-core-rpc/13.1/isomorphic-core-rpc-13.1-javadoc.jar.sha1", sha1("original"));
+
+        try (RemoteChecksums checksums = new RemoteChecksums(url, null, null, 2)) {
+            Assert.assertTrue(checksums.matches(artifact));
+            Assert.assertFalse(checksums.matches(changed));
+        }
+    }
+
+    @Test
+    public void fallsBackToSha256() throws Exception {
+        Artifact artifact = artifact("smartgwt", "", "pom", "13.1", "content");
+        files.put("com/isomorphic/smartgwt/13.1/smartgwt-13.1.pom.sha256",
+            Hashing.sha256().hashString("content", StandardCharsets.UTF_8).toString());
+
+        try (RemoteChecksums checksums = new RemoteChecksums(url + "/", null, null, 1)) {
+            Assert.assertTrue(checksums.matches(artifact));
+        }
+        Assert.assertEquals(2, requests.size());
+    }
+
+    @Test
+    public void differsWithoutChecksum() throws Exception {
+        Artifact artifact = artifact("smartgwt", "", "jar", "13.1", "content");
+        try (RemoteChecksums checksums = new RemoteChecksums(url, null, null, 1)) {
+            Assert.assertFalse(checksums.matches(artifact));
+        }
+    }
+
+    @Test
+    public void alwaysDiffersForSnapshots() throws Exception {
+        Artifact artifact = artifact("smartgwt", "", "jar", "13.1-SNAPSHOT", "content");
+        files.put("com/isomorphic/smartgwt/13.1-SNAPSHOT/smartgwt-13.1-SNAPSHOT.jar.sha1", sha1("content"));
+        try (RemoteChecksums checksums = new RemoteChecksums(url, null, null, 1)) {
+            Assert.assertFalse(checksums.matches(artifact));
+        }
+        Assert.assertTrue(requests.isEmpty());
+    }
+
+    @Test
+    public void authenticates() throws Exception {
+        secured = true;
+        Artifact artifact = artifact("smartgwt", "", "jar", "13.1", "content");
+        files.put("com/isomorphic/smartgwt/13.1/smartgwt-13.1.jar.sha1", sha1("content"));
+
+        try (RemoteChecksums checksums = new RemoteChecksums(url, null, null, 1)) {
+            Assert.assertFalse(checksums.matches(artifact));
+        }
+        try (RemoteChecksums checksums = new RemoteChecksums(url, new UsernamePasswordCredentials("user", "secret"), null, 1)) {
+            Assert.assertTrue(checksums.matches(artifact));
+        }
+    }
+
+    @Test
+    public void neverSendsCredentialsToOtherHosts() throws Exception {
+        secured = true;
+        Artifact artifact = artifact("smartgwt", "", "jar", "13.1", "content");
+        files.put("com/isomorphic/smartgwt/13.1/smartgwt-13.1.jar.sha1", sha1("content"));
+
+        //redirected from 127.0.0.1 to localhost, i.e. to another host as far as the client can tell
+        try (RemoteChecksums checksums = new RemoteChecksums(url + "/moved", new UsernamePasswordCredentials("user", "secret"), null, 1)) {
+            Assert.assertFalse(checksums.matches(artifact));
+        }
+        Assert.assertTrue(requests.contains("com/isomorphic/smartgwt/13.1/smartgwt-13.1.jar.sha1"));
+        for (String host : authorized) {
+            Assert.assertFalse(host, host.startsWith("localhost"));
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath().substring("/repository/".length());
+        requests.add(path);
+        if (exchange.getRequestHeaders().containsKey("Authorization")) {
+            authorized.add(exchange.getRequestHeaders().getFirst("Host"));
+        }
+        String content = files.get(path);
+        if (path.startsWith("moved/")) {
+            exchange.getResponseHeaders().add("Location",
+                "http://localhost:" + server.getAddress().getPort() + "/repository/" + path.substring("moved/".length()));
+            exchange.sendResponseHeaders(302, -1);
+        } else if (secured && !AUTHORIZATION.equals(exchange.getRequestHeaders().getFirst("Authorization"))) {
+            exchange.getResponseHeaders().add("WWW-Authenticate", "Basic realm=\"repository\"");
+            exchange.sendResponseHeaders(401, -1);
+        } else if (content == null) {
+            exchange.sendResponseHeaders(404, -1);
+        } else {
+            byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+        exchange.close();
+    }
+
+    private Artifact artifact(String artifactId, String classifier, String extension, String version, String content) throws IOException {
+        File file = folder.newFile();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return new DefaultArtifact("com.isomorphic", artifactId, classifier, extension, version).setFile(file);
+    }
+
+    @SuppressWarnings("deprecation")
+    private static String sha1(String content) {
+        return Hashing.sha1().hashString(content, StandardCharsets.UTF_8).toString();
+    }
+
+}
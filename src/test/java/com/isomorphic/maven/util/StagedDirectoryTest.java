@@ -0,0 +1,139 @@
+package com.isomorphic.maven.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+
+public class StagedDirectoryTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void resumesUnpublishedContents() throws Exception {
+        File target = new File(folder.getRoot(), "sdk");
+
+        File directory;
+        try (StagedDirectory stage = new StagedDirectory(target, null)) {
+            directory = stage.getDirectory();
+            try (Journal journal = stage.openJournal("inputs")) {
+                write(new File(directory, "a.txt"), "a");
+                journal.complete("a");
+            }
+        }
+
+        try (StagedDirectory stage = new StagedDirectory(target, null)) {
+            Assert.assertEquals(directory, stage.getDirectory());
+            try (Journal journal = stage.openJournal("inputs")) {
+                Assert.assertTrue(journal.isResumed());
+                Assert.assertTrue(journal.isComplete("a"));
+                Assert.assertTrue(new File(directory, "a.txt").exists());
+            }
+        }
+    }
+
+    @Test
+    public void neverSharesDirectoryInUse() throws Exception {
+        File target = new File(folder.getRoot(), "sdk");
+
+        try (StagedDirectory first = new StagedDirectory(target, null)) {
+            first.openJournal("inputs").close();
+            try (StagedDirectory second = new StagedDirectory(target, null)) {
+                Assert.assertNotEquals(first.getDirectory(), second.getDirectory());
+            }
+        }
+    }
+
+    @Test
+    public void neverSharesDirectoryWithTargetOfSameName() throws Exception {
+        File scratch = folder.newFolder("scratch");
+        File target = new File(folder.newFolder("eval"), "sdk");
+        File other = new File(folder.newFolder("power"), "sdk");
+
+        File staged;
+        try (StagedDirectory stage = new StagedDirectory(target, scratch)) {
+            try (Journal journal = stage.openJournal("eval")) {
+                staged = new File(stage.getDirectory(), "a.txt");
+                write(staged, "a");
+                journal.complete("a");
+            }
+        }
+
+        try (StagedDirectory stage = new StagedDirectory(other, scratch)) {
+            stage.openJournal("power").close();
+            Assert.assertNotEquals(staged.getParentFile(), stage.getDirectory());
+        }
+        Assert.assertTrue(staged.exists());
+    }
+
+    @Test
+    public void publishesContents() throws Exception {
+        File target = new File(folder.getRoot(), "sdk");
+        write(new File(target, "zip/download.zip"), "zip");
+        write(new File(target, "old.txt"), "old");
+
+        try (StagedDirectory stage = new StagedDirectory(target, folder.newFolder("scratch"))) {
+            stage.openJournal("inputs").close();
+            write(new File(stage.getDirectory(), "new.txt"), "new");
+            stage.publish("zip");
+            Assert.assertFalse(stage.getDirectory().exists());
+        }
+
+        Assert.assertTrue(new File(target, "new.txt").exists());
+        Assert.assertTrue(new File(target, "zip/download.zip").exists());
+        Assert.assertFalse(new File(target, "old.txt").exists());
+    }
+
+    @Test
+    public void cleansUpStaleScratchDirectories() throws Exception {
+        File scratch = folder.newFolder("scratch");
+        File target = new File(folder.getRoot(), "sdk");
+
+        File directory;
+        try (StagedDirectory stage = new StagedDirectory(target, scratch)) {
+            stage.openJournal("inputs").close();
+            directory = stage.getDirectory();
+        }
+        long stale = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(2);
+        directory.setLastModified(stale);
+        new File(directory.getPath() + ".journal").setLastModified(stale);
+
+        StagedDirectory.cleanUp(target, scratch);
+        for (int i = 0; i < 100 && directory.exists(); i++) {
+            Thread.sleep(50);
+        }
+        Assert.assertFalse(directory.exists());
+    }
+
+    private static void write(File file, String content) throws Exception {
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+}